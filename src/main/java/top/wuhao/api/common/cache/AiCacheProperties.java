@@ -0,0 +1,47 @@
+package top.wuhao.api.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AI 回答缓存配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.cache")
+public class AiCacheProperties {
+
+    /**
+     * 是否启用回答缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存（L1）最大条目数
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 默认过期时间
+     */
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    /**
+     * 各接口的过期时间，key 为接口标识（如 qna、summary、mindmap）
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    /**
+     * 获取接口对应的过期时间
+     */
+    public Duration getTtl(String endpoint) {
+        return ttl.getOrDefault(endpoint, defaultTtl);
+    }
+}
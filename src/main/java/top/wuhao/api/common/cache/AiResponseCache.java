@@ -0,0 +1,176 @@
+package top.wuhao.api.common.cache;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * AI 回答精确匹配缓存
+ * <p>
+ * 以「接口 + 规范化后的提示词 + 模型参数」的哈希作为 key，本地 Caffeine 作为 L1，Redis 作为 L2。
+ * 只适用于固定 seed、低 temperature 的确定性调用。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class AiResponseCache {
+
+    private final RedisCache redisCache;
+    private final AiCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RequestCoalescer requestCoalescer;
+    private final Cache<String, CachedAnswer> localCache;
+
+    public AiResponseCache(RedisCache redisCache, AiCacheProperties properties, MeterRegistry meterRegistry,
+                           RequestCoalescer requestCoalescer) {
+        this.redisCache = redisCache;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.requestCoalescer = requestCoalescer;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new AnswerExpiry())
+                .build();
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 并回填两级缓存；同一 key 的并发未命中只调用一次 loader
+     *
+     * @param endpoint 接口标识，决定过期时间
+     * @param prompt   最终发送给模型的提示词
+     * @param options  本次调用的模型参数
+     * @param loader   实际调用模型的逻辑
+     * @return 回答内容
+     */
+    public String get(String endpoint, String prompt, ChatOptions options, Supplier<String> loader) {
+        String hash = cacheKey(prompt, options);
+        String localKey = endpoint + ":" + hash;
+        if (!properties.isEnabled()) {
+            return requestCoalescer.execute(localKey, loader);
+        }
+
+        CachedAnswer local = localCache.getIfPresent(localKey);
+        if (local != null) {
+            count(endpoint, "l1_hit");
+            return local.value();
+        }
+
+        long ttlNanos = properties.getTtl(endpoint).toNanos();
+        String redisKey = RedisKeys.getAiAnswerKey(endpoint, hash);
+        String remote = readRemote(redisKey);
+        if (remote != null) {
+            count(endpoint, "l2_hit");
+            localCache.put(localKey, new CachedAnswer(remote, ttlNanos));
+            return remote;
+        }
+
+        count(endpoint, "miss");
+        return requestCoalescer.execute(localKey, () -> {
+            String answer = loader.get();
+            if (StrUtil.isNotBlank(answer)) {
+                localCache.put(localKey, new CachedAnswer(answer, ttlNanos));
+                writeRemote(redisKey, answer, ttlNanos);
+            }
+            return answer;
+        });
+    }
+
+    /**
+     * 计算缓存 key：规范化提示词 + 影响输出的模型参数
+     */
+    public static String cacheKey(String prompt, ChatOptions options) {
+        StringBuilder source = new StringBuilder(normalize(prompt)).append('\u0000');
+        if (options != null) {
+            source.append(options.getModel()).append('|')
+                    .append(options.getTemperature()).append('|')
+                    .append(options.getTopP()).append('|')
+                    .append(options.getTopK()).append('|')
+                    .append(options.getMaxTokens());
+            if (options instanceof DashScopeChatOptions dashScopeOptions) {
+                source.append('|').append(dashScopeOptions.getSeed())
+                        .append('|').append(dashScopeOptions.getRepetitionPenalty())
+                        .append('|').append(dashScopeOptions.getEnableSearch())
+                        .append('|').append(dashScopeOptions.getMultiModel());
+            }
+        }
+        return DigestUtil.sha256Hex(source.toString());
+    }
+
+    /**
+     * 规范化提示词：全角转半角、合并空白
+     */
+    private static String normalize(String prompt) {
+        if (prompt == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(prompt, Normalizer.Form.NFKC);
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+
+    private String readRemote(String redisKey) {
+        try {
+            return redisCache.get(redisKey, String.class);
+        } catch (Exception e) {
+            log.warn("读取 AI 回答缓存失败，key: {}", redisKey, e);
+            return null;
+        }
+    }
+
+    private void writeRemote(String redisKey, String answer, long ttlNanos) {
+        try {
+            // Redis 过期时间以秒为单位，不足一秒按一秒，避免写入 0 导致 SET 失败
+            redisCache.set(redisKey, answer, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(ttlNanos)), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入 AI 回答缓存失败，key: {}", redisKey, e);
+        }
+    }
+
+    private void count(String endpoint, String result) {
+        Counter.builder("ai.response.cache")
+                .description("AI 回答缓存命中情况")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 本地缓存条目，记录各自的过期时间
+     */
+    private record CachedAnswer(String value, long ttlNanos) {
+    }
+
+    /**
+     * 按条目 TTL 过期，读取不续期
+     */
+    private static class AnswerExpiry implements Expiry<String, CachedAnswer> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAnswer value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAnswer value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAnswer value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
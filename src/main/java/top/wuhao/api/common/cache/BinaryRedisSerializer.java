@@ -0,0 +1,135 @@
+package top.wuhao.api.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Redis 值的二进制编码
+ * <p>
+ * 格式：魔数 {@code 0xC1}（UTF-8 和 JSON 文本都不会以该字节开头）+ 版本 + 类型/标志位 + 数据。
+ * 字符串直接存 UTF-8；对象用 Smile（二进制 JSON）编码并保留类型信息，超过阈值时 Deflate 压缩；
+ * Integer/Long 不加头，直接存十进制文本，保证 INCR/DECR 可用，读取时与原 JSON 格式一致。
+ * 不带魔数的数据按原 JSON 格式读取，旧数据无需迁移，过期后自然替换为新格式。
+ * <p>
+ * 写入格式可切换回原 JSON（用于回滚），此时仍按上述规则读取，之前写入的二进制数据不受影响。
+ *
+ * @author wang
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xC1;
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 3;
+
+    private static final byte TYPE_STRING = 0x01;
+    private static final byte TYPE_SMILE = 0x02;
+    private static final byte TYPE_MASK = 0x0F;
+    private static final byte FLAG_DEFLATE = 0x10;
+
+    private final ObjectMapper smileMapper;
+    private final RedisSerializer<Object> legacySerializer;
+    private final int compressThreshold;
+    private final boolean writeBinary;
+
+    /**
+     * @param smileMapper       Smile 格式、开启默认类型信息的 ObjectMapper
+     * @param legacySerializer  原 JSON 序列化器，用于读取旧数据
+     * @param compressThreshold 压缩阈值（字节），小于等于 0 不压缩
+     * @param writeBinary       是否以二进制格式写入，false 时写入原 JSON 格式
+     */
+    public BinaryRedisSerializer(ObjectMapper smileMapper, RedisSerializer<Object> legacySerializer,
+                                 int compressThreshold, boolean writeBinary) {
+        this.smileMapper = smileMapper;
+        this.legacySerializer = legacySerializer;
+        this.compressThreshold = compressThreshold;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!writeBinary) {
+            return legacySerializer.serialize(value);
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return value.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        if (value instanceof String string) {
+            return withHeader(TYPE_STRING, string.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            byte[] body = smileMapper.writeValueAsBytes(value);
+            if (compressThreshold > 0 && body.length > compressThreshold) {
+                return withHeader((byte) (TYPE_SMILE | FLAG_DEFLATE), deflate(body));
+            }
+            return withHeader(TYPE_SMILE, body);
+        } catch (IOException e) {
+            throw new SerializationException("Redis 值编码失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            throw new SerializationException("不支持的 Redis 值编码版本: " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        byte type = (byte) (bytes[2] & TYPE_MASK);
+        try {
+            byte[] body = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+            if ((bytes[2] & FLAG_DEFLATE) != 0) {
+                body = inflate(body);
+            }
+            return switch (type) {
+                case TYPE_STRING -> new String(body, StandardCharsets.UTF_8);
+                case TYPE_SMILE -> smileMapper.readValue(body, Object.class);
+                default -> throw new SerializationException("未知的 Redis 值类型: " + type);
+            };
+        } catch (IOException e) {
+            throw new SerializationException("Redis 值解码失败", e);
+        }
+    }
+
+    private static byte[] withHeader(byte typeAndFlags, byte[] body) {
+        byte[] bytes = new byte[HEADER_LENGTH + body.length];
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+        bytes[2] = typeAndFlags;
+        System.arraycopy(body, 0, bytes, HEADER_LENGTH, body.length);
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater)) {
+            deflaterOut.write(body);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] body) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
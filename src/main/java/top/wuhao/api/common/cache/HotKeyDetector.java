@@ -0,0 +1,254 @@
+package top.wuhao.api.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Redis 热点 key 探测与本地副本
+ * <p>
+ * 用 Count-Min Sketch 近似统计每个 key 的读取次数，计数按周期减半衰减；估计值达到阈值的 key 视为热点，
+ * 读取结果在本节点保留一份短时副本，后续读取不再访问 Redis。热点由各节点分别判断，本节点不热的 key 可能在其他节点
+ * 持有副本，因此节点提升热点时通过 Redis 发布订阅广播，并在每个衰减周期为仍然热的 key 批量续期，各节点据此维护
+ * 「某个节点上是热点」的 key 集合。通过 {@link RedisCache} 写入或删除其中的 key 时才发布失效消息，
+ * 其他写入只清本地副本，不额外访问 Redis。提升消息丢失或绕过 RedisCache 的写入只能等副本过期。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class HotKeyDetector implements MessageListener {
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C,
+            0xFD7046C5, 0xB55A4F09};
+
+    private final HotKeyProperties properties;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AtomicIntegerArray sketch;
+    private final int width;
+    private final int depth;
+    private final Map<String, Long> hotKeys = new ConcurrentHashMap<>();
+    private final Cache<String, Object> replicas;
+    /**
+     * 在任意节点上被提升为热点的 key，未续期的在两个衰减周期后过期
+     */
+    private final Cache<String, Boolean> promotedKeys;
+    private final Counter replicaHitCounter;
+
+    public HotKeyDetector(HotKeyProperties properties, StringRedisTemplate stringRedisTemplate,
+                          RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.width = Math.max(16, properties.getSketchWidth());
+        this.depth = Math.min(SEEDS.length, Math.max(1, properties.getSketchDepth()));
+        this.sketch = new AtomicIntegerArray(width * depth);
+        this.replicas = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxHotKeys())
+                .expireAfterWrite(properties.getReplicaTtl())
+                .build();
+        // 各节点的热点合计，按单节点上限的数倍预留
+        this.promotedKeys = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxHotKeys() * 4L)
+                .expireAfterWrite(Duration.ofMillis(properties.getDecayIntervalMillis() * 2))
+                .build();
+        this.replicaHitCounter = Counter.builder("redis.hotkey.replica.hits")
+                .description("热点 key 本地副本命中次数")
+                .register(meterRegistry);
+        Gauge.builder("redis.hotkey.count", hotKeys, Map::size)
+                .description("当前热点 key 数量")
+                .register(meterRegistry);
+        listenerContainer.addMessageListener(this, List.of(new ChannelTopic(RedisKeys.getHotKeyChannel()),
+                new ChannelTopic(RedisKeys.getHotKeyPromotionChannel())));
+    }
+
+    /**
+     * 读取本地副本
+     *
+     * @param key 键
+     * @return 副本值，不存在返回 null
+     */
+    public Object getReplica(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Object value = replicas.getIfPresent(key);
+        if (value != null) {
+            // 副本命中同样计数，保证仍在被访问的热点不会因衰减而失去热点身份
+            increment(key);
+            replicaHitCounter.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 记录一次从 Redis 的读取，key 为热点时保存本地副本
+     *
+     * @param key   键
+     * @param value 读取到的值
+     */
+    public void recordRead(String key, Object value) {
+        if (!properties.isEnabled() || isExcluded(key)) {
+            return;
+        }
+        int estimate = increment(key);
+        if (estimate < properties.getThreshold() && !hotKeys.containsKey(key)) {
+            return;
+        }
+        if (hotKeys.size() < properties.getMaxHotKeys() || hotKeys.containsKey(key)) {
+            if (hotKeys.put(key, (long) estimate) == null) {
+                promote(List.of(key));
+            }
+            if (value != null) {
+                replicas.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * key 被修改，清除本地副本并通知其他节点
+     *
+     * @param key 键
+     */
+    public void onWrite(String key) {
+        // 排除的 key 在任何节点都不会有副本
+        if (!properties.isEnabled() || isExcluded(key)) {
+            return;
+        }
+        replicas.invalidate(key);
+        // 没有任何节点把它当作热点，其他节点不会有副本
+        if (promotedKeys.getIfPresent(key) == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeys.getHotKeyChannel(), key);
+        } catch (Exception e) {
+            log.warn("发布热点 key 失效消息失败，其他节点将在副本过期后生效，key: {}", key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (RedisKeys.getHotKeyPromotionChannel().equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+            for (String key : body.split("\n")) {
+                promotedKeys.put(key, Boolean.TRUE);
+            }
+            return;
+        }
+        replicas.invalidate(body);
+    }
+
+    /**
+     * 当前热点 key，按估计访问次数倒序
+     */
+    public List<HotKey> snapshot() {
+        List<HotKey> result = new ArrayList<>(hotKeys.size());
+        hotKeys.forEach((key, estimate) ->
+                result.add(new HotKey(key, estimate, replicas.getIfPresent(key) != null)));
+        result.sort(Comparator.comparingLong(HotKey::estimate).reversed());
+        return result;
+    }
+
+    /**
+     * 所有计数减半，估计值降到阈值一半以下的 key 不再视为热点
+     */
+    @Scheduled(fixedDelayString = "${redis.hot-key.decay-interval-millis:10000}")
+    public void decay() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (int i = 0; i < sketch.length(); i++) {
+            sketch.updateAndGet(i, count -> count >>> 1);
+        }
+        int floor = properties.getThreshold() / 2;
+        hotKeys.entrySet().removeIf(entry -> {
+            int estimate = estimate(entry.getKey());
+            if (estimate < floor) {
+                replicas.invalidate(entry.getKey());
+                return true;
+            }
+            entry.setValue((long) estimate);
+            return false;
+        });
+        // 仍然热的 key 批量续期，一个周期一条消息
+        if (!hotKeys.isEmpty()) {
+            promote(new ArrayList<>(hotKeys.keySet()));
+        }
+    }
+
+    /**
+     * 记录并广播热点 key，本节点同时直接记录，不依赖收到自己的消息
+     */
+    private void promote(List<String> keys) {
+        for (String key : keys) {
+            promotedKeys.put(key, Boolean.TRUE);
+        }
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeys.getHotKeyPromotionChannel(), String.join("\n", keys));
+        } catch (Exception e) {
+            log.warn("发布热点 key 提升消息失败，其他节点写入时不会通知本节点，副本过期后生效", e);
+        }
+    }
+
+    private boolean isExcluded(String key) {
+        for (String prefix : properties.getExcludePrefixes()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int increment(String key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, sketch.incrementAndGet(index(row, hash)));
+        }
+        return min;
+    }
+
+    private int estimate(String key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, sketch.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    private int index(int row, int hash) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * width + Math.floorMod(h, width);
+    }
+
+    /**
+     * 热点 key 信息
+     *
+     * @param key        键
+     * @param estimate   当前周期的估计访问次数
+     * @param replicated 本节点是否持有副本
+     */
+    public record HotKey(String key, long estimate, boolean replicated) {
+    }
+}
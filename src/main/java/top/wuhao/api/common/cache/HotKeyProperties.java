@@ -0,0 +1,61 @@
+package top.wuhao.api.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis 热点 key 探测配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "redis.hot-key")
+public class HotKeyProperties {
+
+    /**
+     * 是否开启热点探测和本地副本
+     */
+    private boolean enabled = true;
+
+    /**
+     * Count-Min Sketch 每行的计数器数量
+     */
+    private int sketchWidth = 4096;
+
+    /**
+     * Count-Min Sketch 的行数（哈希函数个数）
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * 一个衰减周期内访问次数达到该值即视为热点
+     */
+    private int threshold = 500;
+
+    /**
+     * 衰减周期（毫秒），每个周期所有计数减半
+     */
+    private long decayIntervalMillis = 10000;
+
+    /**
+     * 本地副本过期时间，也是跨节点失效消息丢失时的最长不一致时间
+     */
+    private Duration replicaTtl = Duration.ofSeconds(2);
+
+    /**
+     * 最多同时跟踪的热点 key 数
+     */
+    private int maxHotKeys = 1000;
+
+    /**
+     * 不参与本地副本的 key 前缀，如登录态、验证码等要求强一致的数据，
+     * 以及已有本地缓存和失效通知的两级缓存 {@code cache:}
+     */
+    private List<String> excludePrefixes = new ArrayList<>(List.of("user:token:", "sms:code:", "cache:"));
+}
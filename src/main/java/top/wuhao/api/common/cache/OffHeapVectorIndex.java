@@ -0,0 +1,176 @@
+package top.wuhao.api.common.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 堆外向量索引
+ * <p>
+ * 固定容量、固定维度，向量归一化后存放在一块 direct buffer 中，查询时按内积（即余弦相似度）暴力扫描。
+ * 容量满时优先复用过期槽位，否则淘汰最久未访问的槽位（LRU）。
+ *
+ * @author wang
+ */
+public class OffHeapVectorIndex {
+
+    private final int dimension;
+    private final int capacity;
+    private final long ttlMillis;
+
+    private final FloatBuffer vectors;
+    private final String[] values;
+    private final long[] createTimes;
+    private final AtomicLongArray accessTimes;
+    private final boolean[] used;
+    private int size;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public OffHeapVectorIndex(int dimension, int capacity, long ttlMillis) {
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.vectors = ByteBuffer.allocateDirect(dimension * capacity * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        this.values = new String[capacity];
+        this.createTimes = new long[capacity];
+        this.accessTimes = new AtomicLongArray(capacity);
+        this.used = new boolean[capacity];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * 当前有效条目数（包含尚未清理的过期条目）
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查找相似度不低于阈值的最近邻
+     *
+     * @param vector    查询向量
+     * @param threshold 余弦相似度阈值
+     * @return 命中结果，未命中返回 null
+     */
+    public Match search(float[] vector, double threshold) {
+        float[] query = normalize(vector);
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            int best = -1;
+            double bestScore = threshold;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (!used[slot] || isExpired(slot, now)) {
+                    continue;
+                }
+                double score = dot(slot, query);
+                if (score >= bestScore) {
+                    best = slot;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            accessTimes.set(best, now);
+            return new Match(values[best], bestScore);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入向量及对应的值
+     */
+    public void put(float[] vector, String value) {
+        float[] normalized = normalize(vector);
+        long now = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            int slot = selectSlot(now);
+            if (!used[slot]) {
+                used[slot] = true;
+                size++;
+            }
+            vectors.put(slot * dimension, normalized);
+            values[slot] = value;
+            createTimes[slot] = now;
+            accessTimes.set(slot, now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 选择写入槽位：空闲 > 过期 > 最久未访问
+     */
+    private int selectSlot(long now) {
+        int lru = 0;
+        long oldestAccess = Long.MAX_VALUE;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (!used[slot] || isExpired(slot, now)) {
+                return slot;
+            }
+            long accessTime = accessTimes.get(slot);
+            if (accessTime < oldestAccess) {
+                oldestAccess = accessTime;
+                lru = slot;
+            }
+        }
+        return lru;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return ttlMillis > 0 && now - createTimes[slot] > ttlMillis;
+    }
+
+    private double dot(int slot, float[] query) {
+        int offset = slot * dimension;
+        double sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += vectors.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望 " + dimension + "，实际 " + vector.length);
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[dimension];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < dimension; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    /**
+     * 查询结果
+     *
+     * @param value      命中的值
+     * @param similarity 余弦相似度
+     */
+    public record Match(String value, double similarity) {
+    }
+}
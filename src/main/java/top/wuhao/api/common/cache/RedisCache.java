@@ -1,13 +1,23 @@
 package top.wuhao.api.common.cache;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Redis 缓存工具类
+ * <p>
+ * 键值（String 类型）的读写经过 {@link HotKeyDetector}：热点 key 读取本地短时副本，写入时清除各节点副本。
  *
  * @author mqxu
  */
@@ -15,7 +25,29 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class RedisCache {
 
+    /**
+     * 值等于期望值时删除；ARGV[1] 期望值
+     */
+    private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 值等于期望值时替换并设置过期时间；ARGV[1] 期望值，ARGV[2] 新值，ARGV[3] 过期毫秒数
+     */
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final HotKeyDetector hotKeyDetector;
 
     /**
      * 设置缓存
@@ -25,6 +57,7 @@ public class RedisCache {
      */
     public void set(String key, Object value) {
         redisTemplate.opsForValue().set(key, value);
+        hotKeyDetector.onWrite(key);
     }
 
     /**
@@ -37,6 +70,20 @@ public class RedisCache {
      */
     public void set(String key, Object value, long timeout, TimeUnit unit) {
         redisTemplate.opsForValue().set(key, value, timeout, unit);
+        hotKeyDetector.onWrite(key);
+    }
+
+    /**
+     * key 不存在时设置缓存，带过期时间
+     *
+     * @param key     键
+     * @param value   值
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     * @return true-设置成功 false-key 已存在
+     */
+    public boolean setIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit));
     }
 
     /**
@@ -46,7 +93,14 @@ public class RedisCache {
      * @return 值
      */
     public Object get(String key) {
-        return redisTemplate.opsForValue().get(key);
+        // 热点 key 优先读取本地副本
+        Object replica = hotKeyDetector.getReplica(key);
+        if (replica != null) {
+            return replica;
+        }
+        Object value = redisTemplate.opsForValue().get(key);
+        hotKeyDetector.recordRead(key, value);
+        return value;
     }
 
     /**
@@ -58,7 +112,7 @@ public class RedisCache {
      */
     @SuppressWarnings("unchecked")
     public <T> T get(String key, Class<T> clazz) {
-        Object value = redisTemplate.opsForValue().get(key);
+        Object value = get(key);
         if (value == null) {
             return null;
         }
@@ -72,6 +126,7 @@ public class RedisCache {
      */
     public void delete(String key) {
         redisTemplate.delete(key);
+        hotKeyDetector.onWrite(key);
     }
 
     /**
@@ -113,7 +168,9 @@ public class RedisCache {
      * @return 递增后的值
      */
     public Long increment(String key, long delta) {
-        return redisTemplate.opsForValue().increment(key, delta);
+        Long value = redisTemplate.opsForValue().increment(key, delta);
+        hotKeyDetector.onWrite(key);
+        return value;
     }
 
     /**
@@ -124,6 +181,132 @@ public class RedisCache {
      * @return 递减后的值
      */
     public Long decrement(String key, long delta) {
-        return redisTemplate.opsForValue().decrement(key, delta);
+        Long value = redisTemplate.opsForValue().decrement(key, delta);
+        hotKeyDetector.onWrite(key);
+        return value;
+    }
+
+    /**
+     * 获取 Hash 的所有字段
+     *
+     * @param key 键
+     * @return 字段和值，key 不存在时为空 Map
+     */
+    public Map<Object, Object> hGetAll(String key) {
+        return redisTemplate.opsForHash().entries(key);
+    }
+
+    /**
+     * 批量设置 Hash 字段，并设置过期时间
+     *
+     * @param key     键
+     * @param values  字段和值
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     */
+    public void hPutAll(String key, Map<String, Object> values, long timeout, TimeUnit unit) {
+        redisTemplate.opsForHash().putAll(key, values);
+        redisTemplate.expire(key, timeout, unit);
+    }
+
+    /**
+     * 批量获取缓存，一次往返
+     *
+     * @param keys 键
+     * @return 与 keys 顺序一致的值，不存在的为 null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * 批量设置缓存并设置相同的过期时间，通过管道一次往返
+     *
+     * @param values  键和值
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     */
+    public void multiSet(Map<String, Object> values, long timeout, TimeUnit unit) {
+        pipelined(operations -> values.forEach((key, value) -> operations.opsForValue().set(key, value, timeout, unit)));
+        values.keySet().forEach(hotKeyDetector::onWrite);
+    }
+
+    /**
+     * 批量删除缓存
+     *
+     * @param keys 键
+     * @return 删除数量
+     */
+    public long delete(Collection<String> keys) {
+        Long deleted = redisTemplate.delete(keys);
+        keys.forEach(hotKeyDetector::onWrite);
+        return deleted == null ? 0 : deleted;
+    }
+
+    /**
+     * 管道执行多个命令，一次往返；回调中的命令返回 null，结果在执行完成后统一返回
+     *
+     * @param actions 要执行的命令
+     * @return 各命令的结果
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> pipelined(Consumer<RedisOperations<String, Object>> actions) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                actions.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 值等于期望值时删除（原子操作），用于验证码核销、释放锁等
+     *
+     * @param key      键
+     * @param expected 期望值
+     * @return true-已删除 false-值不匹配或不存在
+     */
+    public boolean compareAndDelete(String key, Object expected) {
+        Long result = redisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, List.of(key), expected);
+        boolean deleted = result != null && result > 0;
+        if (deleted) {
+            hotKeyDetector.onWrite(key);
+        }
+        return deleted;
+    }
+
+    /**
+     * 值等于期望值时替换为新值并设置过期时间（原子操作），用于 Token 轮换等
+     *
+     * @param key      键
+     * @param expected 期望值
+     * @param value    新值
+     * @param timeout  过期时间
+     * @param unit     时间单位
+     * @return true-已替换 false-值不匹配或不存在
+     */
+    public boolean compareAndSet(String key, Object expected, Object value, long timeout, TimeUnit unit) {
+        Long result = redisTemplate.execute(COMPARE_AND_SET_SCRIPT, List.of(key), expected, value,
+                unit.toMillis(timeout));
+        boolean replaced = result != null && result > 0;
+        if (replaced) {
+            hotKeyDetector.onWrite(key);
+        }
+        return replaced;
+    }
+
+    /**
+     * 执行 Lua 脚本，参数和返回值使用值序列化器；脚本中修改的 key 需由调用方自行处理本地副本
+     *
+     * @param script 脚本
+     * @param keys   KEYS
+     * @param args   ARGV
+     * @return 脚本返回值
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        T result = redisTemplate.execute(script, keys, args);
+        keys.forEach(hotKeyDetector::onWrite);
+        return result;
     }
 }
@@ -20,4 +20,179 @@ public class RedisKeys {
     public static String getUserTokenKey(Long userId) {
         return "user:token:" + userId;
     }
+
+    /**
+     * AI 回答缓存 Key
+     */
+    public static String getAiAnswerKey(String endpoint, String hash) {
+        return "ai:answer:" + endpoint + ":" + hash;
+    }
+
+    /**
+     * 智能体检查点 Key
+     */
+    public static String getAgentCheckpointKey(String threadId) {
+        return "agent:checkpoint:" + threadId;
+    }
+
+    /**
+     * 智能体检查点版本号 Key，每次写入检查点列表时递增，用于并发写入检测和本地缓存校验
+     */
+    public static String getAgentCheckpointVersionKey(String threadId) {
+        return "agent:checkpoint:version:" + threadId;
+    }
+
+    /**
+     * 学习助手用户会话线程 Key
+     */
+    public static String getStudyThreadKey(String userId) {
+        return "study:thread:" + userId;
+    }
+
+    /**
+     * 学习助手会话线程重置通知频道
+     */
+    public static String getStudyThreadChannel() {
+        return "study:thread:reset";
+    }
+
+    /**
+     * 会话历史滚动摘要 Key
+     */
+    public static String getChatSummaryKey(Long sessionId) {
+        return "chat:summary:" + sessionId;
+    }
+
+    /**
+     * 用户会话列表排序索引 Key（ZSET）
+     */
+    public static String getSessionIndexKey(Long userId) {
+        return "chat:session:index:" + userId;
+    }
+
+    /**
+     * 用户会话列表摘要 Key（HASH）
+     */
+    public static String getSessionSummaryKey(Long userId) {
+        return "chat:session:summary:" + userId;
+    }
+
+    /**
+     * 用户会话列表索引重建令牌 Key，重建期间有写入时被删除，重建结果随之作废
+     */
+    public static String getSessionIndexBuildingKey(Long userId) {
+        return "chat:session:building:" + userId;
+    }
+
+    /**
+     * 会话最后一条消息回填游标 Key
+     */
+    public static String getSessionBackfillCursorKey() {
+        return "chat:session:backfill:cursor";
+    }
+
+    /**
+     * 会话最后一条消息回填任务锁 Key
+     */
+    public static String getSessionBackfillLockKey() {
+        return "chat:session:backfill:lock";
+    }
+
+    /**
+     * 已删除会话清理任务锁 Key
+     */
+    public static String getSessionPurgeLockKey() {
+        return "chat:session:purge:lock";
+    }
+
+    /**
+     * 已删除会话清理的扫描游标（最后处理的会话ID）
+     */
+    public static String getSessionPurgeCursorKey() {
+        return "chat:session:purge:cursor";
+    }
+
+    /**
+     * 用户 Token 失效通知频道
+     */
+    public static String getUserTokenChannel() {
+        return "user:token:invalidate";
+    }
+
+    /**
+     * 两级缓存 Key
+     */
+    public static String getTieredCacheKey(String key) {
+        return "cache:" + key;
+    }
+
+    /**
+     * 两级缓存本地失效通知频道
+     */
+    public static String getTieredCacheChannel() {
+        return "cache:invalidate";
+    }
+
+    /**
+     * 用户信息缓存 Key（两级缓存，不含前缀）
+     */
+    public static String getUserInfoCacheKey(Long userId) {
+        return "user:info:" + userId;
+    }
+
+    /**
+     * 热点 key 本地副本失效通知频道
+     */
+    public static String getHotKeyChannel() {
+        return "cache:hotkey:invalidate";
+    }
+
+    /**
+     * 热点 key 提升通知频道，消息为换行分隔的 key
+     */
+    public static String getHotKeyPromotionChannel() {
+        return "cache:hotkey:promote";
+    }
+
+    /**
+     * 用户续期前的 Token Key，保留到旧 Token 过期（至少宽限期）
+     */
+    public static String getUserPreviousTokenKey(Long userId) {
+        return "user:token:prev:" + userId;
+    }
+
+    /**
+     * 用户 Token 续期租约 Key
+     */
+    public static String getTokenRenewLeaseKey(Long userId) {
+        return "user:token:renew:" + userId;
+    }
+
+    /**
+     * 已撤销 Token（ZSET，member 为 jti，score 为过期时间戳）
+     */
+    public static String getRevokedTokensKey() {
+        return "auth:revoked:tokens";
+    }
+
+    /**
+     * 用户级撤销时间（ZSET，member 为 userId，score 为撤销时的毫秒时间戳，此前签发的 Token 全部失效）
+     */
+    public static String getRevokedUsersKey() {
+        return "auth:revoked:user-times";
+    }
+
+    /**
+     * 无状态续期签发的新 Token（按旧 Token 的 jti），各节点复用同一个，登出旧 Token 时一并撤销
+     */
+    public static String getStatelessRenewalKey(String tokenId) {
+        return "auth:renewed:" + tokenId;
+    }
+
+    /**
+     * Token 撤销通知频道
+     */
+    public static String getRevocationChannel() {
+        return "auth:revoked";
+    }
 }
@@ -0,0 +1,170 @@
+package top.wuhao.api.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import top.wuhao.api.common.exception.ServerException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并（single-flight）
+ * <p>
+ * 相同 key 的并发请求只触发一次上游调用，其余请求等待并共享同一结果；调用结束后立即移除，不做缓存。
+ * 流式请求共享同一个 Flux，后加入的订阅者先收到已产生的片段，再继续接收实时输出。
+ * 同步等待者最多等待 joinTimeout，避免上游卡住时所有等待线程一起挂起。
+ *
+ * @author wang
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<?>> inFlightCalls = new ConcurrentHashMap<>();
+    private final Map<String, Flux<?>> inFlightStreams = new ConcurrentHashMap<>();
+
+    /**
+     * 同步等待其他请求结果的最长时间
+     */
+    @Value("${ai.coalesce.join-timeout:120s}")
+    private Duration joinTimeout;
+
+    /**
+     * 同步调用合并
+     *
+     * @param key      请求标识
+     * @param supplier 实际调用逻辑
+     * @return 调用结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> supplier) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlightCalls.putIfAbsent(key, created);
+        if (existing != null) {
+            count("call", "joined");
+            return join(existing);
+        }
+        count("call", "leader");
+        try {
+            T result = supplier.get();
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // 包括 Error 和被隐式抛出的受检异常，保证等待者一定能结束
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightCalls.remove(key, created);
+        }
+    }
+
+    /**
+     * 异步调用合并，返回的 future 被取消不会影响其他等待者
+     *
+     * @param key      请求标识
+     * @param supplier 实际调用逻辑
+     * @return 调用结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> supplier) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlightCalls.putIfAbsent(key, created);
+        if (existing != null) {
+            count("call", "joined");
+            return existing.thenApply(Function.identity());
+        }
+        count("call", "leader");
+        CompletableFuture<T> upstream;
+        try {
+            upstream = supplier.get();
+        } catch (Throwable e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        if (upstream == null) {
+            upstream = CompletableFuture.failedFuture(new IllegalStateException("上游返回了空的 future"));
+        }
+        upstream.whenComplete((result, error) -> {
+            inFlightCalls.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(result);
+            }
+        });
+        return created.thenApply(Function.identity());
+    }
+
+    /**
+     * 流式调用合并
+     * <p>
+     * 所有订阅者取消后上游随之取消；上游结束（完成、失败或取消）后移除，之后的请求会重新发起调用。
+     *
+     * @param key      请求标识
+     * @param supplier 实际调用逻辑
+     * @return 共享的 Flux
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> stream(String key, Supplier<Flux<T>> supplier) {
+        Flux<T> existing = (Flux<T>) inFlightStreams.get(key);
+        if (existing != null) {
+            count("stream", "joined");
+            return existing;
+        }
+        AtomicReference<Flux<T>> self = new AtomicReference<>();
+        Flux<T> shared = Flux.defer(supplier)
+                .doFinally(signal -> inFlightStreams.remove(key, self.get()))
+                .replay()
+                .refCount();
+        self.set(shared);
+        existing = (Flux<T>) inFlightStreams.putIfAbsent(key, shared);
+        if (existing != null) {
+            count("stream", "joined");
+            return existing;
+        }
+        count("stream", "leader");
+        return shared;
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get(joinTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new ServerException("请求处理失败，请稍后重试");
+        } catch (TimeoutException e) {
+            count("call", "timeout");
+            throw new ServerException("请求处理超时，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("请求已中断");
+        }
+    }
+
+    private void count(String type, String role) {
+        Counter.builder("ai.request.coalesce")
+                .description("请求合并情况")
+                .tag("type", type)
+                .tag("role", role)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,149 @@
+package top.wuhao.api.common.cache;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * AI 回答语义缓存
+ * <p>
+ * 将问题向量化后在本地向量索引中查找近似问题，相似度超过阈值时直接返回已有回答，
+ * 用于「你是谁」「你叫什么」这类同义问法。不同命名空间（接口、模型）的索引互相隔离。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    private final ObjectProvider<EmbeddingModel> embeddingModelProvider;
+    private final SemanticCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final Map<String, OffHeapVectorIndex> indexes = new ConcurrentHashMap<>();
+
+    public SemanticAnswerCache(ObjectProvider<EmbeddingModel> embeddingModelProvider,
+                               SemanticCacheProperties properties,
+                               MeterRegistry meterRegistry,
+                               AsyncTaskExecutor applicationTaskExecutor) {
+        this.embeddingModelProvider = embeddingModelProvider;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
+    /**
+     * 读取语义缓存，未命中时调用 loader 并写入索引
+     *
+     * @param namespace 命名空间，如 qna:qwen-plus、agent
+     * @param question  用户原始问题
+     * @param loader    实际调用模型的逻辑
+     * @return 回答内容
+     */
+    public String get(String namespace, String question, Supplier<String> loader) {
+        EmbeddingModel embeddingModel = embeddingModel(question);
+        if (embeddingModel == null) {
+            return loader.get();
+        }
+        float[] vector = embed(embeddingModel, namespace, question);
+        if (vector == null) {
+            return loader.get();
+        }
+        OffHeapVectorIndex index = indexOf(namespace, vector);
+        String cached = lookup(index, namespace, vector);
+        if (cached != null) {
+            return cached;
+        }
+        String answer = loader.get();
+        store(index, vector, answer);
+        return answer;
+    }
+
+    /**
+     * 异步读取语义缓存，向量化在应用任务线程池中执行，不阻塞调用方线程
+     *
+     * @param namespace 命名空间
+     * @param question  用户原始问题
+     * @param loader    实际调用模型的异步逻辑
+     * @return 回答内容
+     */
+    public CompletableFuture<String> getAsync(String namespace, String question,
+                                              Supplier<CompletableFuture<String>> loader) {
+        EmbeddingModel embeddingModel = embeddingModel(question);
+        if (embeddingModel == null) {
+            return loader.get();
+        }
+        return CompletableFuture.supplyAsync(() -> embed(embeddingModel, namespace, question), applicationTaskExecutor)
+                .thenCompose(vector -> {
+                    if (vector == null) {
+                        return loader.get();
+                    }
+                    OffHeapVectorIndex index = indexOf(namespace, vector);
+                    String cached = lookup(index, namespace, vector);
+                    if (cached != null) {
+                        return CompletableFuture.completedFuture(cached);
+                    }
+                    return loader.get().thenApply(answer -> {
+                        store(index, vector, answer);
+                        return answer;
+                    });
+                });
+    }
+
+    private EmbeddingModel embeddingModel(String question) {
+        if (!properties.isEnabled() || StrUtil.isBlank(question)) {
+            return null;
+        }
+        return embeddingModelProvider.getIfAvailable();
+    }
+
+    private float[] embed(EmbeddingModel embeddingModel, String namespace, String question) {
+        try {
+            return embeddingModel.embed(question.trim());
+        } catch (Exception e) {
+            log.warn("问题向量化失败，跳过语义缓存，namespace: {}", namespace, e);
+            return null;
+        }
+    }
+
+    private OffHeapVectorIndex indexOf(String namespace, float[] vector) {
+        return indexes.computeIfAbsent(namespace,
+                k -> new OffHeapVectorIndex(vector.length, properties.getCapacity(), properties.getTtl().toMillis()));
+    }
+
+    private String lookup(OffHeapVectorIndex index, String namespace, float[] vector) {
+        OffHeapVectorIndex.Match match = index.search(vector, properties.getSimilarityThreshold());
+        if (match == null) {
+            count(namespace, "miss");
+            return null;
+        }
+        count(namespace, "hit");
+        log.debug("语义缓存命中，namespace: {}, similarity: {}", namespace, match.similarity());
+        return match.value();
+    }
+
+    private void store(OffHeapVectorIndex index, float[] vector, String answer) {
+        if (StrUtil.isNotBlank(answer)) {
+            index.put(vector, answer);
+        }
+    }
+
+    private void count(String namespace, String result) {
+        Counter.builder("ai.semantic.cache")
+                .description("AI 语义缓存命中情况")
+                .tag("namespace", namespace)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
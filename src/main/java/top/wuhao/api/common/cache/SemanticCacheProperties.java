@@ -0,0 +1,38 @@
+package top.wuhao.api.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 语义缓存配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.semantic-cache")
+public class SemanticCacheProperties {
+
+    /**
+     * 是否启用语义缓存（每次请求会多一次向量化调用）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 命中所需的最低余弦相似度
+     */
+    private double similarityThreshold = 0.92;
+
+    /**
+     * 每个命名空间的最大条目数，堆外内存占用约为 容量 × 向量维度 × 4 字节
+     */
+    private int capacity = 4096;
+
+    /**
+     * 条目过期时间
+     */
+    private Duration ttl = Duration.ofHours(6);
+}
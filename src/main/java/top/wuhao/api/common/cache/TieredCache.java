@@ -0,0 +1,243 @@
+package top.wuhao.api.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 两级缓存：本地 Caffeine（L1）+ Redis（L2）
+ * <p>
+ * 两级都未命中时按 key 合并加载，同一节点上同一 key 的并发未命中只调用一次 loader；loader 返回 null 时按
+ * negativeTtl 缓存空值。写入 Redis 的过期时间带随机抖动，避免同一批 key 同时过期。
+ * 读取命中时按 XFetch 算法以一定概率提前在后台刷新：越接近过期、加载越慢，越早刷新，热点 key 不会集中失效。
+ * 本地缓存保留时间不超过 localTtl，{@link #evict(String)} 通过 Redis 发布订阅通知所有节点清除本地副本。
+ * 缓存值需能被 RedisTemplate 的值序列化器处理。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class TieredCache implements MessageListener, DisposableBean {
+
+    private final RedisCache redisCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RequestCoalescer requestCoalescer;
+    private final TieredCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, CacheEntry> localCache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public TieredCache(RedisCache redisCache, StringRedisTemplate stringRedisTemplate,
+                       RequestCoalescer requestCoalescer, TieredCacheProperties properties,
+                       RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+        this.redisCache = redisCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.requestCoalescer = requestCoalescer;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfter(new LocalExpiry(properties.getLocalTtl().toNanos()))
+                .build();
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = Math.max(1, properties.getRefreshThreads());
+        // 提前刷新是尽力而为，队列满时直接丢弃，由正常过期兜底
+        this.refreshExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000), runnable -> {
+            Thread thread = new Thread(runnable, "tiered-cache-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getTieredCacheChannel()));
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 并回填两级缓存
+     *
+     * @param key    缓存 key（不含前缀）
+     * @param loader 加载逻辑，返回 null 表示不存在，同样会被缓存
+     * @param ttl    过期时间
+     * @return 缓存值，不存在返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader, Duration ttl) {
+        CacheEntry entry = localCache.getIfPresent(key);
+        if (entry != null) {
+            count("l1_hit");
+        } else {
+            entry = readRemote(key);
+            if (entry != null) {
+                count("l2_hit");
+                localCache.put(key, entry);
+            }
+        }
+        if (entry != null) {
+            if (shouldRefreshEarly(entry)) {
+                refreshAsync(key, loader, ttl);
+            }
+            return (T) entry.getValue();
+        }
+
+        count("miss");
+        CacheEntry loaded = requestCoalescer.execute("tiered:" + key, () -> load(key, loader, ttl));
+        return (T) loaded.getValue();
+    }
+
+    /**
+     * 清除缓存，并通知所有节点清除本地副本
+     *
+     * @param key 缓存 key（不含前缀）
+     */
+    public void evict(String key) {
+        localCache.invalidate(key);
+        try {
+            redisCache.delete(RedisKeys.getTieredCacheKey(key));
+            stringRedisTemplate.convertAndSend(RedisKeys.getTieredCacheChannel(), key);
+        } catch (Exception e) {
+            log.warn("清除两级缓存失败，key: {}", key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CacheEntry load(String key, Supplier<?> loader, Duration ttl) {
+        long start = System.currentTimeMillis();
+        Object value = loader.get();
+        long computeMillis = System.currentTimeMillis() - start;
+        Duration effectiveTtl = value == null ? properties.getNegativeTtl() : jitter(ttl);
+        CacheEntry entry = new CacheEntry(value, System.currentTimeMillis() + effectiveTtl.toMillis(), computeMillis);
+        localCache.put(key, entry);
+        try {
+            redisCache.set(RedisKeys.getTieredCacheKey(key), entry, effectiveTtl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("写入两级缓存失败，key: {}", key, e);
+        }
+        return entry;
+    }
+
+    private void refreshAsync(String key, Supplier<?> loader, Duration ttl) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        count("early_refresh");
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, loader, ttl);
+                } catch (Exception e) {
+                    log.warn("提前刷新两级缓存失败，key: {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * XFetch：now - delta * beta * ln(rand) >= expireAt 时刷新，rand ∈ (0, 1]
+     */
+    private boolean shouldRefreshEarly(CacheEntry entry) {
+        double beta = properties.getEarlyRefreshBeta();
+        if (beta <= 0 || entry.getValue() == null) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -entry.getComputeMillis() * beta * Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.getExpireAt();
+    }
+
+    private Duration jitter(Duration ttl) {
+        double jitter = properties.getTtlJitter();
+        if (jitter <= 0) {
+            return ttl;
+        }
+        return ttl.plusMillis((long) (ttl.toMillis() * jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private CacheEntry readRemote(String key) {
+        try {
+            CacheEntry entry = redisCache.get(RedisKeys.getTieredCacheKey(key), CacheEntry.class);
+            return entry != null && entry.getExpireAt() > System.currentTimeMillis() ? entry : null;
+        } catch (Exception e) {
+            log.warn("读取两级缓存失败，key: {}", key, e);
+            return null;
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("cache.tiered")
+                .description("两级缓存访问情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 缓存条目：值（null 表示空值缓存）、过期时间戳、加载耗时，写入 Redis 时保留类型信息
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheEntry {
+        private Object value;
+        private long expireAt;
+        private long computeMillis;
+    }
+
+    /**
+     * 本地条目保留到 Redis 中的过期时间，但不超过 localTtl
+     */
+    private record LocalExpiry(long localTtlNanos) implements Expiry<String, CacheEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, CacheEntry entry, long currentTime) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(entry.getExpireAt() - System.currentTimeMillis());
+            return Math.max(0, Math.min(localTtlNanos, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
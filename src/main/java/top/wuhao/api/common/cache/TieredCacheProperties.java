@@ -0,0 +1,48 @@
+package top.wuhao.api.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 两级缓存配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache.tiered")
+public class TieredCacheProperties {
+
+    /**
+     * 本地缓存（L1）最大条目数
+     */
+    private long localMaximumSize = 10000;
+
+    /**
+     * 本地缓存最长保留时间，跨节点失效消息丢失时的最长不一致时间
+     */
+    private Duration localTtl = Duration.ofMinutes(1);
+
+    /**
+     * 空值（loader 返回 null）的缓存时间
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /**
+     * 过期时间随机抖动比例，0.1 表示在 [ttl, ttl * 1.1] 之间随机
+     */
+    private double ttlJitter = 0.1;
+
+    /**
+     * 提前刷新系数（XFetch beta），越大越早刷新，0 表示关闭提前刷新
+     */
+    private double earlyRefreshBeta = 1.0;
+
+    /**
+     * 后台刷新线程数
+     */
+    private int refreshThreads = 2;
+}
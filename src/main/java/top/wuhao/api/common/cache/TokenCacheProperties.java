@@ -0,0 +1,33 @@
+package top.wuhao.api.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Token 校验本地缓存配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.token-cache")
+public class TokenCacheProperties {
+
+    /**
+     * 是否启用本地缓存，关闭后每次请求都查询 Redis
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存最大条目数（每个在线用户一条）
+     */
+    private long maximumSize = 100000;
+
+    /**
+     * 本地缓存过期时间，也是跨节点失效消息丢失时的最长不一致时间
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+}
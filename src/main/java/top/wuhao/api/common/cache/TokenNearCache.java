@@ -0,0 +1,174 @@
+package top.wuhao.api.common.cache;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token 校验本地缓存
+ * <p>
+ * 缓存 userId → 当前有效 Token 的 SHA-256（续期后还包括宽限期内的旧 Token），命中时请求无需访问 Redis。
+ * 登出、重新登录、续期时通过 Redis 发布订阅通知所有节点失效对应用户；消息丢失时由较短的过期时间兜底。
+ * 未命中时先记下失效版本号再读 Redis，回填前版本号变化说明期间有失效消息，放弃回填，避免把旧 Token 写回缓存。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class TokenNearCache implements MessageListener {
+
+    private final RedisCache redisCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TokenCacheProperties properties;
+    private final Cache<Long, Entry> localCache;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final DistributionSummary hitAge;
+    private final Timer invalidationLag;
+
+    public TokenNearCache(RedisCache redisCache, StringRedisTemplate stringRedisTemplate,
+                          TokenCacheProperties properties, RedisMessageListenerContainer listenerContainer,
+                          MeterRegistry meterRegistry) {
+        this.redisCache = redisCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.hitCounter = Counter.builder("auth.token.cache")
+                .description("Token 校验本地缓存访问次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("auth.token.cache")
+                .description("Token 校验本地缓存访问次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.hitAge = DistributionSummary.builder("auth.token.cache.age")
+                .description("命中时缓存条目的存活时间（毫秒），反映可能的不一致窗口")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("auth.token.cache.invalidation.lag")
+                .description("失效消息从发布到本节点处理的延迟")
+                .register(meterRegistry);
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getUserTokenChannel()));
+    }
+
+    /**
+     * 校验 Token 是否为用户当前有效的 Token，或宽限期内的续期前 Token
+     *
+     * @param userId 用户ID
+     * @param token  已验签的 Token
+     * @return 校验结果
+     */
+    public TokenCheck check(Long userId, String token) {
+        String tokenHash = DigestUtil.sha256Hex(token);
+        if (properties.isEnabled()) {
+            Entry entry = localCache.getIfPresent(userId);
+            if (entry != null) {
+                TokenCheck cached = entry.check(tokenHash);
+                if (cached.valid()) {
+                    hitCounter.increment();
+                    hitAge.record(System.currentTimeMillis() - entry.cachedAt);
+                    return cached;
+                }
+            }
+            missCounter.increment();
+        }
+        long version = invalidations.get();
+        // 当前 Token 和续期前 Token 一次读取
+        List<Object> saved = redisCache.multiGet(List.of(RedisKeys.getUserTokenKey(userId),
+                RedisKeys.getUserPreviousTokenKey(userId)));
+        String current = saved == null ? null : (String) saved.get(0);
+        if (current == null) {
+            return TokenCheck.INVALID;
+        }
+        String previous = (String) saved.get(1);
+        Entry entry = new Entry(DigestUtil.sha256Hex(current), previous == null ? null : DigestUtil.sha256Hex(previous),
+                current, System.currentTimeMillis());
+        if (properties.isEnabled() && invalidations.get() == version) {
+            localCache.put(userId, entry);
+        }
+        return entry.check(tokenHash);
+    }
+
+    /**
+     * 用户 Token 变更（登出、重新登录、续期）后调用，失效所有节点上该用户的缓存
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeys.getUserTokenChannel(),
+                    userId + ":" + System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("发布 Token 失效消息失败，其他节点将在缓存过期后生效，userId: {}", userId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            Long userId = Long.valueOf(separator < 0 ? body : body.substring(0, separator));
+            evict(userId);
+            if (separator >= 0) {
+                long lag = System.currentTimeMillis() - Long.parseLong(body.substring(separator + 1));
+                invalidationLag.record(Math.max(0, lag), TimeUnit.MILLISECONDS);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("无法解析 Token 失效消息: {}", body);
+        }
+    }
+
+    private void evict(Long userId) {
+        invalidations.incrementAndGet();
+        localCache.invalidate(userId);
+    }
+
+    /**
+     * 缓存条目：当前 Token 摘要、续期前 Token 摘要（宽限期内有效）、当前 Token、写入时间
+     */
+    private record Entry(String tokenHash, String previousHash, String currentToken, long cachedAt) {
+
+        private TokenCheck check(String hash) {
+            if (hash.equals(tokenHash)) {
+                return TokenCheck.CURRENT;
+            }
+            if (hash.equals(previousHash)) {
+                return new TokenCheck(true, currentToken);
+            }
+            return TokenCheck.INVALID;
+        }
+    }
+
+    /**
+     * Token 校验结果
+     *
+     * @param valid        是否有效
+     * @param renewedToken 请求携带的是续期前的 Token 时为新 Token，需返回给客户端
+     */
+    public record TokenCheck(boolean valid, String renewedToken) {
+        private static final TokenCheck CURRENT = new TokenCheck(true, null);
+        private static final TokenCheck INVALID = new TokenCheck(false, null);
+    }
+}
@@ -10,13 +10,14 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import top.wuhao.api.common.cache.RedisCache;
-import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.cache.TokenNearCache;
+import top.wuhao.api.common.utils.JwtClaims;
 import top.wuhao.api.common.utils.JwtUtils;
+import top.wuhao.api.config.JwtAuthProperties;
+import top.wuhao.api.config.TokenRenewProperties;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,7 +32,11 @@ import lombok.extern.slf4j.Slf4j;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
-    private final RedisCache redisCache;
+    private final TokenNearCache tokenNearCache;
+    private final TokenRenewer tokenRenewer;
+    private final TokenRenewProperties tokenRenewProperties;
+    private final TokenRevocationList tokenRevocationList;
+    private final JwtAuthProperties jwtAuthProperties;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -40,25 +45,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 从请求头获取 Token
         String token = getTokenFromRequest(request);
         if (StrUtil.isNotBlank(token)) {
-            // 验证 Token
-            if (jwtUtils.validateToken(token)) {
-                // 从 Token 中获取用户 ID
-                Long userId = jwtUtils.getUserIdFromToken(token);
-                // 检查 Redis 中是否存在该用户的 token
-                String tokenKey = RedisKeys.getUserTokenKey(userId);
-                String savedToken = redisCache.get(tokenKey, String.class);
-
-                if (token.equals(savedToken)) {
-                    // Token 有效，检查是否需要续期
-                    Long remainingTime = jwtUtils.getExpiration(token);
-                    // 如果剩余时间小于30分钟，自动续期
-                    if (remainingTime != null && remainingTime < 30 * 60 * 1000) {
-                        String newToken = jwtUtils.generateToken(userId);
-                        // 更新 Redis 中的 token
-                        redisCache.set(tokenKey, newToken, jwtUtils.getExpiration(newToken) / 1000, TimeUnit.SECONDS);
-                        log.info("Token 自动续期成功，userId: {}", userId);
-                    }
-
+            // 验签并解析 Token，整个请求只验签一次
+            JwtClaims claims = jwtUtils.parseToken(token);
+            if (claims != null) {
+                Long userId = claims.userId();
+                if (isActive(userId, token, claims, response)) {
                     // Token 有效，创建认证对象,权限改为空权限列表，更适合纯 API 项目
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
@@ -74,6 +65,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 按认证方式检查已验签的 Token 是否仍然有效，需要时触发续期
+     */
+    private boolean isActive(Long userId, String token, JwtClaims claims, HttpServletResponse response) {
+        if (jwtAuthProperties.getAuthMode() == JwtAuthProperties.AuthMode.REVOCATION_LIST) {
+            // 只检查本地同步的撤销列表，未撤销的 Token 无需网络请求
+            if (tokenRevocationList.isRevoked(claims)) {
+                return false;
+            }
+            if (tokenRenewer.shouldRenew(claims.remainingMillis())) {
+                response.setHeader(tokenRenewProperties.getHeader(), tokenRenewer.renewStateless(claims));
+            }
+            return true;
+        }
+        // 检查是否为该用户当前的 token，本地缓存未命中时查询 Redis
+        TokenNearCache.TokenCheck check = tokenNearCache.check(userId, token);
+        if (!check.valid()) {
+            return false;
+        }
+        if (check.renewedToken() != null) {
+            // 携带的是续期前的 token，返回新 token 供客户端替换
+            response.setHeader(tokenRenewProperties.getHeader(), check.renewedToken());
+        } else if (tokenRenewer.shouldRenew(claims.remainingMillis())) {
+            // 临近过期，后台续期，不阻塞当前请求
+            tokenRenewer.renewAsync(userId, token);
+        }
+        return true;
+    }
+
     /**
      * 从请求头获取 Token
      */
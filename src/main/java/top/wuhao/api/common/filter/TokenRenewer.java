@@ -0,0 +1,199 @@
+package top.wuhao.api.common.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.cache.TokenNearCache;
+import top.wuhao.api.common.utils.JwtClaims;
+import top.wuhao.api.common.utils.JwtUtils;
+import top.wuhao.api.config.TokenRenewProperties;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 异步续期
+ * <p>
+ * 过滤器只负责触发，签发和写 Redis 在后台线程完成：本节点内同一用户同时只有一个续期任务，
+ * 跨节点以 Redis SET NX 租约保证每个续期窗口内只续期一次。续期时旧 Token 在其剩余有效期内（至少宽限期）仍然有效，
+ * 客户端后续请求携带旧 Token 时由 {@link TokenNearCache} 给出新 Token，过滤器通过响应头返回。
+ * 撤销列表认证方式下不在 Redis 中保存当前 Token，直接签发新 Token 返回；同一个旧 Token 的续期结果记在 Redis 中，
+ * 所有节点复用同一个新 Token，登出旧 Token 时据此一并撤销。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class TokenRenewer implements DisposableBean {
+
+    /**
+     * 当前 Token 仍是旧 Token 时替换为新 Token，并把旧 Token 放入宽限 Key
+     * ARGV[1] 旧 Token；ARGV[2] 新 Token；ARGV[3] 新 Token 有效期毫秒数；ARGV[4] 旧 Token 保留毫秒数
+     */
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[4])
+            return 1
+            """, Long.class);
+
+    private final JwtUtils jwtUtils;
+    private final RedisCache redisCache;
+    private final TokenNearCache tokenNearCache;
+    private final TokenRenewProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ThreadPoolExecutor executor;
+    /**
+     * 旧 Token 的 jti → 续期签发的新 Token，宽限期内避免重复访问 Redis
+     */
+    private final Cache<String, String> statelessTokens;
+
+    public TokenRenewer(JwtUtils jwtUtils, RedisCache redisCache, TokenNearCache tokenNearCache,
+                        TokenRenewProperties properties, MeterRegistry meterRegistry) {
+        this.jwtUtils = jwtUtils;
+        this.redisCache = redisCache;
+        this.tokenNearCache = tokenNearCache;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        // 队列满时丢弃，下一次请求会再次触发
+        this.executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "token-renewer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        this.statelessTokens = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(properties.getGrace())
+                .build();
+    }
+
+    /**
+     * Token 是否进入续期窗口
+     *
+     * @param remainingMillis 剩余有效时间（毫秒）
+     */
+    public boolean shouldRenew(long remainingMillis) {
+        return remainingMillis < properties.getWindow().toMillis();
+    }
+
+    /**
+     * 触发续期，立即返回
+     *
+     * @param userId 用户ID
+     * @param token  当前 Token
+     */
+    public void renewAsync(Long userId, String token) {
+        if (!inFlight.add(userId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    renew(userId, token);
+                } catch (Exception e) {
+                    log.warn("Token 续期失败，userId: {}", userId, e);
+                } finally {
+                    inFlight.remove(userId);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(userId);
+        }
+    }
+
+    /**
+     * 无状态续期：签发新 Token 并记录在旧 Token 名下，其他节点已续期时复用其结果
+     *
+     * @param claims 当前 Token 信息
+     * @return 新 Token
+     */
+    public String renewStateless(JwtClaims claims) {
+        if (claims.tokenId() == null) {
+            // 旧版本 Token 没有 jti，登出时按用户撤销，无需记录
+            count("stateless");
+            return jwtUtils.generateToken(claims.userId());
+        }
+        return statelessTokens.get(claims.tokenId(), tokenId -> {
+            String key = RedisKeys.getStatelessRenewalKey(tokenId);
+            String newToken = jwtUtils.generateToken(claims.userId());
+            // 记录保留到旧 Token 过期，此后旧 Token 无法再用于登出
+            if (redisCache.setIfAbsent(key, newToken, Math.max(1, claims.remainingMillis()), TimeUnit.MILLISECONDS)) {
+                count("stateless");
+                return newToken;
+            }
+            Object renewed = redisCache.get(key);
+            count("stateless_shared");
+            return renewed == null ? newToken : renewed.toString();
+        });
+    }
+
+    /**
+     * 查询任一节点为该 Token 无状态续期签发的新 Token
+     *
+     * @param claims 旧 Token 信息
+     * @return 新 Token，未续期返回 null
+     */
+    public String findStatelessRenewal(JwtClaims claims) {
+        if (claims.tokenId() == null) {
+            return null;
+        }
+        Object renewed = redisCache.get(RedisKeys.getStatelessRenewalKey(claims.tokenId()));
+        return renewed == null ? null : renewed.toString();
+    }
+
+    private void renew(Long userId, String token) {
+        // 其他请求或节点已在本窗口内续期
+        if (!redisCache.setIfAbsent(RedisKeys.getTokenRenewLeaseKey(userId), instanceId,
+                properties.getWindow().toMillis(), TimeUnit.MILLISECONDS)) {
+            count("skipped");
+            return;
+        }
+        String newToken = jwtUtils.generateToken(userId);
+        // 旧 Token 在剩余有效期内都可能被其他设备或并发请求携带，至少保留宽限期
+        Long remaining = jwtUtils.getExpiration(token);
+        long previousTtl = Math.max(properties.getGrace().toMillis(), remaining == null ? 0 : remaining);
+        Long rotated = redisCache.execute(ROTATE_SCRIPT,
+                List.of(RedisKeys.getUserTokenKey(userId), RedisKeys.getUserPreviousTokenKey(userId)),
+                token, newToken, jwtUtils.getTokenTtlMillis(), previousTtl);
+        if (rotated != null && rotated > 0) {
+            tokenNearCache.invalidate(userId);
+            count("renewed");
+            log.info("Token 自动续期成功，userId: {}", userId);
+        } else {
+            // Token 已被登出或替换，释放租约
+            redisCache.compareAndDelete(RedisKeys.getTokenRenewLeaseKey(userId), instanceId);
+            count("stale");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private void count(String result) {
+        Counter.builder("auth.token.renew")
+                .description("Token 续期情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,277 @@
+package top.wuhao.api.common.filter;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.utils.JwtClaims;
+import top.wuhao.api.common.utils.JwtUtils;
+import top.wuhao.api.config.JwtAuthProperties;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token 撤销列表（REVOCATION_LIST 认证方式）
+ * <p>
+ * 被撤销的 Token（登出）按 jti 记录在 Redis ZSET 中，分数为 Token 过期时间，过期后自动清理；
+ * 用户级撤销（禁用账号、修改手机号等）按毫秒记录撤销时间，此时及之前签发的 Token 全部失效，
+ * 超过 Token 有效期的撤销记录不再影响任何 Token，同步时从 Redis 和本地一并清理。
+ * 每个节点把 ZSET 镜像为本地布隆过滤器、把用户撤销时间镜像为本地 Map，定期全量同步，
+ * 新的撤销通过 Redis 发布订阅实时广播。绝大多数未撤销的 Token 校验无需网络请求，
+ * 布隆过滤器命中时再查询一次 Redis 排除误判。首次同步完成前直接查询 Redis。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class TokenRevocationList implements MessageListener, InitializingBean {
+
+    private static final String TOKEN_PREFIX = "t:";
+    private static final String USER_PREFIX = "u:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JwtAuthProperties properties;
+    private final JwtUtils jwtUtils;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+    /**
+     * 上次同步以来新增的撤销，重建过滤器时补入，避免同步期间到达的消息丢失
+     */
+    private final Set<String> recentTokenIds = ConcurrentHashMap.newKeySet();
+    private volatile BloomFilter revokedTokens;
+    private volatile boolean ready;
+
+    public TokenRevocationList(StringRedisTemplate stringRedisTemplate, JwtAuthProperties properties,
+                               JwtUtils jwtUtils, RedisMessageListenerContainer listenerContainer,
+                               MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.jwtUtils = jwtUtils;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+        this.revokedTokens = newBloomFilter(0);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isEnabled()) {
+            return;
+        }
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getRevocationChannel()));
+        sync();
+    }
+
+    /**
+     * 判断 Token 是否已被撤销
+     *
+     * @param claims 验签后的 Token 信息
+     * @return 是否已撤销
+     */
+    public boolean isRevoked(JwtClaims claims) {
+        long issuedAt = claims.issuedAt() == null ? 0 : claims.issuedAt().getTime();
+        if (!ready) {
+            count("redis");
+            return isRevokedRemote(claims, issuedAt);
+        }
+        Long revokedAt = revokedUsers.get(claims.userId());
+        if (revokedAt != null && issuedAt <= revokedAt) {
+            count("revoked");
+            return true;
+        }
+        if (claims.tokenId() == null || !revokedTokens.mightContain(claims.tokenId())) {
+            count("pass");
+            return false;
+        }
+        // 布隆过滤器可能误判，以 Redis 为准
+        boolean revoked = stringRedisTemplate.opsForZSet().score(RedisKeys.getRevokedTokensKey(), claims.tokenId()) != null;
+        count(revoked ? "revoked" : "false_positive");
+        return revoked;
+    }
+
+    /**
+     * 撤销单个 Token
+     *
+     * @param claims 验签后的 Token 信息
+     */
+    public void revokeToken(JwtClaims claims) {
+        if (claims.tokenId() == null) {
+            // 旧版本签发的 Token 没有 jti，只能撤销该用户此前的所有 Token
+            revokeUser(claims.userId());
+            return;
+        }
+        stringRedisTemplate.opsForZSet().add(RedisKeys.getRevokedTokensKey(), claims.tokenId(),
+                claims.expiration().getTime());
+        addToken(claims.tokenId());
+        publish(TOKEN_PREFIX + claims.tokenId());
+    }
+
+    /**
+     * 撤销用户当前时间之前签发的所有 Token
+     *
+     * @param userId 用户ID
+     */
+    public void revokeUser(Long userId) {
+        // 与签发时间同为毫秒精度，撤销的同一毫秒内签发的 Token 也视为已撤销；
+        // 旧版本 Token 的签发时间只精确到秒，撤销所在的那一秒内签发的都会失效
+        long revokedAt = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().add(RedisKeys.getRevokedUsersKey(), String.valueOf(userId), revokedAt);
+        revokedUsers.merge(userId, revokedAt, Math::max);
+        publish(USER_PREFIX + userId + ":" + revokedAt);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (body.startsWith(TOKEN_PREFIX)) {
+                addToken(body.substring(TOKEN_PREFIX.length()));
+            } else if (body.startsWith(USER_PREFIX)) {
+                String[] parts = body.substring(USER_PREFIX.length()).split(":");
+                revokedUsers.merge(Long.valueOf(parts[0]), Long.valueOf(parts[1]), Math::max);
+            }
+        } catch (RuntimeException e) {
+            log.warn("无法解析 Token 撤销消息: {}", body);
+        }
+    }
+
+    /**
+     * 从 Redis 全量同步，同时清理已过期的撤销记录
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-millis:30000}")
+    public void sync() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            // 清空之前收到的撤销都已写入 Redis，会包含在下面的快照中
+            recentTokenIds.clear();
+            long now = System.currentTimeMillis();
+            String tokensKey = RedisKeys.getRevokedTokensKey();
+            stringRedisTemplate.opsForZSet().removeRangeByScore(tokensKey, Double.NEGATIVE_INFINITY, now);
+            Set<String> tokenIds = stringRedisTemplate.opsForZSet().rangeByScore(tokensKey, now, Double.POSITIVE_INFINITY);
+            BloomFilter filter = newBloomFilter(tokenIds == null ? 0 : tokenIds.size());
+            if (tokenIds != null) {
+                tokenIds.forEach(filter::put);
+            }
+            // 早于一个 Token 有效期的用户撤销，此前签发的 Token 都已过期
+            long cutoff = now - jwtUtils.getTokenTtlMillis();
+            String usersKey = RedisKeys.getRevokedUsersKey();
+            stringRedisTemplate.opsForZSet().removeRangeByScore(usersKey, Double.NEGATIVE_INFINITY, cutoff);
+            Set<ZSetOperations.TypedTuple<String>> users = stringRedisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(usersKey, cutoff, Double.POSITIVE_INFINITY);
+            if (users != null) {
+                users.forEach(user -> revokedUsers.merge(Long.valueOf(user.getValue()),
+                        user.getScore().longValue(), Math::max));
+            }
+            revokedUsers.values().removeIf(revokedAt -> revokedAt < cutoff);
+            recentTokenIds.forEach(filter::put);
+            revokedTokens = filter;
+            // 替换前一刻加入旧过滤器的撤销
+            recentTokenIds.forEach(filter::put);
+            ready = true;
+        } catch (Exception e) {
+            log.warn("同步 Token 撤销列表失败，下次重试", e);
+        }
+    }
+
+    private void addToken(String tokenId) {
+        recentTokenIds.add(tokenId);
+        revokedTokens.put(tokenId);
+    }
+
+    private boolean isRevokedRemote(JwtClaims claims, long issuedAt) {
+        Double revokedAt = stringRedisTemplate.opsForZSet().score(RedisKeys.getRevokedUsersKey(),
+                String.valueOf(claims.userId()));
+        if (revokedAt != null && issuedAt <= revokedAt.longValue()) {
+            return true;
+        }
+        return claims.tokenId() != null
+                && stringRedisTemplate.opsForZSet().score(RedisKeys.getRevokedTokensKey(), claims.tokenId()) != null;
+    }
+
+    private boolean isEnabled() {
+        return properties.getAuthMode() == JwtAuthProperties.AuthMode.REVOCATION_LIST;
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeys.getRevocationChannel(), message);
+        } catch (Exception e) {
+            log.warn("发布 Token 撤销消息失败，其他节点将在下次同步后生效", e);
+        }
+    }
+
+    private BloomFilter newBloomFilter(int actualSize) {
+        JwtAuthProperties.Revocation revocation = properties.getRevocation();
+        return new BloomFilter(Math.max(revocation.getExpectedInsertions(), actualSize * 2L),
+                revocation.getFalsePositiveRate());
+    }
+
+    private void count(String result) {
+        Counter.builder("auth.revocation.check")
+                .description("Token 撤销检查情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 线程安全的布隆过滤器，使用 MD5 的高低 64 位做双重哈希
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitSize;
+        private final int hashCount;
+
+        BloomFilter(long expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+            long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+            this.bitSize = Math.max(64, m);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((bitSize + 63) / 64));
+        }
+
+        void put(String value) {
+            ByteBuffer digest = ByteBuffer.wrap(DigestUtil.md5(value));
+            long h1 = digest.getLong();
+            long h2 = digest.getLong();
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitSize);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                bits.getAndUpdate(word, current -> current | mask);
+            }
+        }
+
+        boolean mightContain(String value) {
+            ByteBuffer digest = ByteBuffer.wrap(DigestUtil.md5(value));
+            long h1 = digest.getLong();
+            long h2 = digest.getLong();
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitSize);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
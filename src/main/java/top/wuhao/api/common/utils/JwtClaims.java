@@ -0,0 +1,22 @@
+package top.wuhao.api.common.utils;
+
+import java.util.Date;
+
+/**
+ * 验签后的 Token 信息
+ *
+ * @param tokenId    Token ID（jti），旧版本签发的 Token 为 null
+ * @param userId     用户 ID
+ * @param issuedAt   签发时间
+ * @param expiration 过期时间
+ * @author mqxu
+ */
+public record JwtClaims(String tokenId, Long userId, Date issuedAt, Date expiration) {
+
+    /**
+     * 剩余有效时间(毫秒)，已过期返回 0
+     */
+    public long remainingMillis() {
+        return Math.max(0, expiration.getTime() - System.currentTimeMillis());
+    }
+}
@@ -1,8 +1,10 @@
 package top.wuhao.api.common.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * JWT 工具类
@@ -19,6 +22,11 @@ import java.util.Date;
 @Component
 @RequiredArgsConstructor
 public class JwtUtils {
+    /**
+     * 毫秒级签发时间，标准 iat 只精确到秒，用户级撤销需要更高精度
+     */
+    private static final String ISSUED_AT_MILLIS = "iatMs";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -27,10 +35,17 @@ public class JwtUtils {
 
 
     /**
-     * 生成密钥
+     * 密钥和解析器线程安全，启动时构建一次
      */
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private SecretKey secretKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
     }
 
     /**
@@ -44,13 +59,41 @@ public class JwtUtils {
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(String.valueOf(userId))
                 .issuedAt(now)
+                .claim(ISSUED_AT_MILLIS, now.getTime())
                 .expiration(expiryDate)
-                .signWith(getSecretKey())
+                .signWith(secretKey)
                 .compact();
     }
 
+    /**
+     * Token 有效期(毫秒)
+     */
+    public long getTokenTtlMillis() {
+        return expiration;
+    }
+
+    /**
+     * 验签并解析 Token，一次请求只需调用一次
+     *
+     * @param token Token
+     * @return Token 信息，无效或已过期返回 null
+     */
+    public JwtClaims parseToken(String token) {
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            // 旧版本签发的 Token 没有毫秒级签发时间
+            Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS, Long.class);
+            Date issuedAt = issuedAtMillis == null ? claims.getIssuedAt() : new Date(issuedAtMillis);
+            return new JwtClaims(claims.getId(), Long.parseLong(claims.getSubject()), issuedAt,
+                    claims.getExpiration());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * 从 Token 中获取用户 ID
      *
@@ -58,12 +101,7 @@ public class JwtUtils {
      * @return 用户 ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
         return Long.parseLong(claims.getSubject());
     }
 
@@ -74,15 +112,7 @@ public class JwtUtils {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSecretKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return parseToken(token) != null;
     }
 
     /**
@@ -92,18 +122,11 @@ public class JwtUtils {
      * @return 剩余有效时间(毫秒)，如果已过期返回 null
      */
     public Long getExpiration(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSecretKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            Date expiration = claims.getExpiration();
-            Date now = new Date();
-            long remaining = expiration.getTime() - now.getTime();
-            return remaining > 0 ? remaining : null;
-        } catch (Exception e) {
+        JwtClaims claims = parseToken(token);
+        if (claims == null) {
             return null;
         }
+        long remaining = claims.remainingMillis();
+        return remaining > 0 ? remaining : null;
     }
 }
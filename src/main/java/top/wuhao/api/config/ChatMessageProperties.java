@@ -0,0 +1,77 @@
+package top.wuhao.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 聊天消息配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.message")
+public class ChatMessageProperties {
+
+    /**
+     * 消息分页默认条数
+     */
+    private int pageSize = 20;
+
+    /**
+     * 消息分页最大条数
+     */
+    private int maxPageSize = 100;
+
+    /**
+     * 消息异步批量写入配置
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 是否开启异步批量写入，关闭时同步单条插入
+         */
+        private boolean enabled = false;
+
+        /**
+         * 内存队列容量，队列满时退化为同步写入
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 单批最大条数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 最长攒批时间
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * 本地追加日志目录，启动时回放未落库的消息
+         */
+        private String logDir = "data/chat-message-wal";
+
+        /**
+         * 单个日志分段的大小上限（字节），超过后切换新分段
+         */
+        private long segmentBytes = 16 * 1024 * 1024;
+
+        /**
+         * 每次追加后是否强制刷盘；关闭时只保证进程崩溃不丢，不保证断电不丢
+         */
+        private boolean syncWrites = false;
+
+        /**
+         * 停机时等待队列写完的最长时间
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,149 @@
+package top.wuhao.api.config;
+
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.exception.ServerException;
+import top.wuhao.api.common.result.ResultCode;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 对话参数工厂
+ * <p>
+ * 以 {@link OptionsConfig} 中的配置作为只读模板，每次调用都返回一份新的 {@link DashScopeChatOptions}，
+ * 请求之间不共享可变对象；切换默认模型时整体替换模板（写时复制），不会影响正在进行中的请求。
+ *
+ * @author wang
+ */
+@Component
+public class ChatOptionsFactory {
+
+    /**
+     * 多模态默认模型
+     */
+    public static final String VISION_MODEL = "qwen-vl-max-latest";
+
+    /**
+     * 允许请求指定的模型，按展示顺序排列，也是模型列表接口的数据来源。
+     * 模型名会进入缓存命名空间和监控标签，不能直接使用任意请求参数
+     */
+    public static final List<SupportedModel> SUPPORTED_MODELS = List.of(
+            new SupportedModel("qwen-turbo", "通义千问-Turbo", "适合快速响应的通用对话场景"),
+            new SupportedModel("qwen-plus", "通义千问-Plus", "效果和速度均衡的通用对话模型"),
+            new SupportedModel("qwen-max", "通义千问-Max", "效果最好、推理能力最强的通用对话模型"),
+            new SupportedModel("qwen-max-latest", "通义千问-Max-Latest", "最新版本的最强通用对话模型"),
+            new SupportedModel("qwen-vl-plus", "通义千问-VL-Plus", "支持图像理解的多模态模型"),
+            new SupportedModel("qwen-vl-max", "通义千问-VL-Max", "效果最强的多模态模型，支持图像理解"));
+
+    private static final Set<String> SUPPORTED_MODEL_NAMES = SUPPORTED_MODELS.stream()
+            .map(SupportedModel::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    /**
+     * 默认参数模板，只读，替换时整体更换引用
+     */
+    private volatile DashScopeChatOptions defaults;
+
+    public ChatOptionsFactory(DashScopeChatOptions dashScopeChatOptions) {
+        this.defaults = dashScopeChatOptions.copy();
+    }
+
+    /**
+     * 当前默认模型
+     */
+    public String getDefaultModel() {
+        return defaults.getModel();
+    }
+
+    /**
+     * 切换默认模型（写时复制）
+     *
+     * @param model 模型名称
+     */
+    public void switchDefaultModel(String model) {
+        checkSupported(model);
+        DashScopeChatOptions next = defaults.copy();
+        next.setModel(model);
+        this.defaults = next;
+    }
+
+    /**
+     * 默认参数
+     */
+    public DashScopeChatOptions defaults() {
+        return forModel(null);
+    }
+
+    /**
+     * 是否为允许请求指定的模型（包括配置的默认模型）
+     */
+    public boolean isSupported(String model) {
+        return SUPPORTED_MODEL_NAMES.contains(model) || defaults.getModel().equals(model);
+    }
+
+    /**
+     * 指定模型的参数，model 为空时使用默认模型
+     *
+     * @throws ServerException 模型不在允许列表中
+     */
+    public DashScopeChatOptions forModel(String model) {
+        if (StrUtil.isNotBlank(model)) {
+            checkSupported(model);
+        }
+        return copyWith(model);
+    }
+
+    /**
+     * 联网搜索参数
+     */
+    public DashScopeChatOptions forWebSearch(String model) {
+        DashScopeChatOptions options = forModel(model);
+        options.setEnableSearch(true);
+        options.setSearchOptions(DashScopeApi.SearchOptions.builder()
+                .forcedSearch(true)
+                .enableSource(true)
+                .searchStrategy("pro")
+                .enableCitation(true)
+                .citationFormat("[<number>]")
+                .build());
+        return options;
+    }
+
+    /**
+     * 图片理解（多模态）参数
+     */
+    public DashScopeChatOptions forVision() {
+        DashScopeChatOptions options = copyWith(VISION_MODEL);
+        options.setMultiModel(true);
+        options.setVlHighResolutionImages(true);
+        return options;
+    }
+
+    private DashScopeChatOptions copyWith(String model) {
+        DashScopeChatOptions options = defaults.copy();
+        if (StrUtil.isNotBlank(model)) {
+            options.setModel(model);
+        }
+        return options;
+    }
+
+    private void checkSupported(String model) {
+        if (!isSupported(model)) {
+            throw new ServerException(ResultCode.PARAM_ERROR.getCode(), "不支持的模型: " + model);
+        }
+    }
+
+    /**
+     * 可用模型
+     *
+     * @param name        模型名称
+     * @param displayName 展示名称
+     * @param description 描述
+     */
+    public record SupportedModel(String name, String displayName, String description) {
+    }
+}
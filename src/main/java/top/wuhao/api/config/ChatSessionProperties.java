@@ -0,0 +1,86 @@
+package top.wuhao.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 聊天会话配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.session")
+public class ChatSessionProperties {
+
+    /**
+     * 用户会话列表索引（Redis）过期时间，过期后下次读取从数据库重建
+     */
+    private Duration indexTtl = Duration.ofDays(1);
+
+    /**
+     * 最后一条消息预览的最大长度
+     */
+    private int previewLength = 100;
+
+    /**
+     * 历史会话最后一条消息回填任务配置
+     */
+    private Backfill backfill = new Backfill();
+
+    /**
+     * 已删除会话的消息清理任务配置
+     */
+    private Purge purge = new Purge();
+
+    @Data
+    public static class Backfill {
+
+        /**
+         * 是否开启回填任务
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每批处理的会话数
+         */
+        private int chunkSize = 200;
+
+        /**
+         * 两批之间的间隔（毫秒）
+         */
+        private long intervalMillis = 1000;
+    }
+
+    @Data
+    public static class Purge {
+
+        /**
+         * 是否开启清理任务。开启后所有尚未清理的已删除会话（包括开启前删除的）的消息都会被物理删除，需显式开启
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每次 DELETE 的最大行数
+         */
+        private int chunkSize = 500;
+
+        /**
+         * 每秒最多删除的消息行数
+         */
+        private int rowsPerSecond = 5000;
+
+        /**
+         * 每轮最多处理的会话数
+         */
+        private int sessionsPerRun = 20;
+
+        /**
+         * 两轮之间的间隔（毫秒）
+         */
+        private long intervalMillis = 5000;
+    }
+}
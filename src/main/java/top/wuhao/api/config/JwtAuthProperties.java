@@ -0,0 +1,56 @@
+package top.wuhao.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JWT 认证方式配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtAuthProperties {
+
+    /**
+     * 认证方式
+     */
+    private AuthMode authMode = AuthMode.REDIS_LOOKUP;
+
+    /**
+     * 撤销列表配置，仅 REVOCATION_LIST 模式生效
+     */
+    private Revocation revocation = new Revocation();
+
+    public enum AuthMode {
+        /**
+         * 每个用户只保存一个有效 Token，请求时与 Redis（及本地缓存）中的 Token 比对
+         */
+        REDIS_LOOKUP,
+        /**
+         * 以签名和过期时间为准，只记录被撤销的 Token，本地布隆过滤器判断是否撤销
+         */
+        REVOCATION_LIST
+    }
+
+    @Data
+    public static class Revocation {
+
+        /**
+         * 布隆过滤器预期元素数，实际撤销数更多时按实际数的两倍重建
+         */
+        private int expectedInsertions = 100000;
+
+        /**
+         * 布隆过滤器误判率，误判时会再查询一次 Redis
+         */
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * 从 Redis 全量同步的间隔（毫秒）
+         */
+        private long syncIntervalMillis = 30000;
+    }
+}
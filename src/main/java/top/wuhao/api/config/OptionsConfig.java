@@ -35,6 +35,9 @@ public class OptionsConfig {
     private List<DashScopeApi.FunctionTool> tools;
     private Object toolChoice;
 
+    /**
+     * 默认对话参数（只读模板，请求级参数通过 {@link ChatOptionsFactory} 复制获得，不要直接修改）
+     */
     @Bean
     public DashScopeChatOptions dashScopeChatOptions() {
         return DashScopeChatOptions.builder()
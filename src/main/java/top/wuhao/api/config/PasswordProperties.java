@@ -0,0 +1,48 @@
+package top.wuhao.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 密码校验配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.password")
+public class PasswordProperties {
+
+    /**
+     * BCrypt 强度（log2 轮数），调高后旧密码在下次登录成功时自动重新加密
+     */
+    private int strength = 10;
+
+    /**
+     * 校验线程数，不超过 CPU 核数的一半，给普通接口留出 CPU
+     */
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * 等待校验的最大请求数，超出立即拒绝
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 单次校验的最长等待时间（含排队）
+     */
+    private Duration timeout = Duration.ofSeconds(3);
+
+    /**
+     * 校验成功结果的缓存时间，0 表示不缓存
+     */
+    private Duration cacheTtl = Duration.ofMinutes(5);
+
+    /**
+     * 校验成功结果的最大缓存数
+     */
+    private long cacheMaximumSize = 10000;
+}
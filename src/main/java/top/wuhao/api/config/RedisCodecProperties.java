@@ -0,0 +1,31 @@
+package top.wuhao.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 值编码配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "redis.codec")
+public class RedisCodecProperties {
+
+    /**
+     * 写入格式：BINARY-带版本头的二进制编码，JSON-原有带类型信息的 JSON。两种格式写入的数据都能读取
+     */
+    private Format format = Format.BINARY;
+
+    /**
+     * 超过该字节数的对象编码后压缩，小于等于 0 表示不压缩
+     */
+    private int compressThreshold = 1024;
+
+    public enum Format {
+        BINARY,
+        JSON
+    }
+}
@@ -4,12 +4,17 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import top.wuhao.api.common.cache.BinaryRedisSerializer;
 
 /**
  * Redis 配置
@@ -20,17 +25,12 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisCodecProperties codecProperties) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // 配置 ObjectMapper
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-
-        // 使用带 ObjectMapper 的构造函数初始化 serializer（修复点）
-        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(mapper, Object.class);
+        RedisSerializer<Object> serializer = valueSerializer(codecProperties);
 
         // 使用 StringRedisSerializer 来序列化和反序列化 key
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
@@ -44,4 +44,36 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * 按配置创建 Redis 值序列化器：配置只决定写入格式，两种格式的数据始终都能读取
+     */
+    public static RedisSerializer<Object> valueSerializer(RedisCodecProperties codecProperties) {
+        // 原 JSON 序列化器：JSON 格式下用于写入，两种格式下都用于读取不带二进制头的数据
+        Jackson2JsonRedisSerializer<Object> jsonSerializer =
+                new Jackson2JsonRedisSerializer<>(typedMapper(new ObjectMapper()), Object.class);
+        return new BinaryRedisSerializer(typedMapper(new ObjectMapper(new SmileFactory())), jsonSerializer,
+                codecProperties.getCompressThreshold(),
+                codecProperties.getFormat() == RedisCodecProperties.Format.BINARY);
+    }
+
+    /**
+     * 配置 ObjectMapper：访问所有字段，非 final 类型写入类型信息，支持 Java 8 时间类型
+     */
+    private static ObjectMapper typedMapper(ObjectMapper mapper) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        return mapper;
+    }
+
+    /**
+     * Redis 发布订阅监听容器，各组件自行注册频道
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
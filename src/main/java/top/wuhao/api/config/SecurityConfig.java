@@ -34,13 +34,15 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final SecurityExceptionHandler securityExceptionHandler;
+    private final TokenRenewProperties tokenRenewProperties;
+    private final PasswordProperties passwordProperties;
 
     /**
-     * 密码编码器
+     * 密码编码器，强度可配置，低于当前强度的密文在登录成功后重新加密
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(passwordProperties.getStrength());
     }
 
     /**
@@ -55,6 +57,8 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         // 允许的请求头
         configuration.setAllowedHeaders(Collections.singletonList("*"));
+        // 允许前端读取续期后的 Token
+        configuration.setExposedHeaders(Collections.singletonList(tokenRenewProperties.getHeader()));
         // 允许携带凭证
         configuration.setAllowCredentials(true);
         // 预检请求有效期
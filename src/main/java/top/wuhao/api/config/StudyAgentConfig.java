@@ -3,12 +3,12 @@ package top.wuhao.api.config;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatModel;
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.function.FunctionToolCallback;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.wuhao.api.infrastructure.checkpoint.RedisCheckpointSaver;
 import top.wuhao.api.tool.ErrorBookTool;
 import top.wuhao.api.tool.KnowledgeQueryTool;
 import top.wuhao.api.tool.StudyPlanTool;
@@ -99,14 +99,15 @@ public class StudyAgentConfig {
                                  ToolCallback studyPlanToolCallback,
                                  ToolCallback knowledgeQueryToolCallback,
                                  ToolCallback studyProgressToolCallback,
-                                 ToolCallback errorBookToolCallback) {
+                                 ToolCallback errorBookToolCallback,
+                                 RedisCheckpointSaver redisCheckpointSaver) {
         return ReactAgent.builder()
                 .name("study_assistant")
                 .model(studyChatModel)
                 .systemPrompt(SYSTEM_PROMPT)
                 .tools(studyPlanToolCallback, knowledgeQueryToolCallback, 
                        studyProgressToolCallback, errorBookToolCallback)
-                .saver(new MemorySaver())
+                .saver(redisCheckpointSaver)
                 .build();
     }
 }
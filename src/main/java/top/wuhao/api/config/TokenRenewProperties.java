@@ -0,0 +1,33 @@
+package top.wuhao.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Token 自动续期配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.renew")
+public class TokenRenewProperties {
+
+    /**
+     * 剩余有效时间小于该值时续期，同一用户在该时间内最多续期一次
+     */
+    private Duration window = Duration.ofMinutes(30);
+
+    /**
+     * 续期后旧 Token 的最短保留时间；旧 Token 剩余有效期更长时保留到其过期，客户端携带旧 Token 时换用响应头中的新 Token
+     */
+    private Duration grace = Duration.ofMinutes(5);
+
+    /**
+     * 返回新 Token 的响应头
+     */
+    private String header = "X-Renewed-Token";
+}
@@ -1,6 +1,7 @@
 package top.wuhao.api.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
+import top.wuhao.api.common.utils.SecurityUtils;
 import top.wuhao.api.service.AIQnaService;
 
 /**
@@ -31,8 +33,9 @@ public class AIQnaController {
      */
     @GetMapping("/ask")
     @Operation(summary = "普通问答接口", description = "返回 AI 回答内容")
-    public String ask(@RequestParam(defaultValue = DEFAULT_QUESTION) String question) {
-        return aiQnaService.answerQuestionSimple(question);
+    public String ask(@RequestParam(defaultValue = DEFAULT_QUESTION) String question,
+                      @RequestParam(required = false) String model) {
+        return aiQnaService.answerQuestionSimple(question, model);
     }
 
     /**
@@ -40,8 +43,35 @@ public class AIQnaController {
      */
     @GetMapping("/ask/stream")
     @Operation(summary = "流式问答接口", description = "实时流式返回 AI 回答内容")
-    public Flux<String> askStream(@RequestParam(defaultValue = DEFAULT_QUESTION) String question) {
-        return aiQnaService.answerQuestionStream(question);
+    public Flux<String> askStream(@RequestParam(defaultValue = DEFAULT_QUESTION) String question,
+                                  @RequestParam(required = false) String model) {
+        return aiQnaService.answerQuestionStream(question, model);
+    }
+
+    /**
+     * 会话内多轮问答（普通响应）
+     */
+    @GetMapping("/session/ask")
+    @Operation(summary = "会话问答接口", description = "携带会话历史上下文返回 AI 回答内容")
+    @SecurityRequirement(name = "Authorization")
+    public String askInSession(@RequestParam Long sessionId,
+                               @RequestParam String question,
+                               @RequestParam(required = false) String model) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        return aiQnaService.answerInSession(sessionId, userId, question, model);
+    }
+
+    /**
+     * 会话内多轮问答（流式响应）
+     */
+    @GetMapping("/session/ask/stream")
+    @Operation(summary = "会话流式问答接口", description = "携带会话历史上下文实时流式返回 AI 回答内容")
+    @SecurityRequirement(name = "Authorization")
+    public Flux<String> askInSessionStream(@RequestParam Long sessionId,
+                                           @RequestParam String question,
+                                           @RequestParam(required = false) String model) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        return aiQnaService.answerInSessionStream(sessionId, userId, question, model);
     }
 
     /**
@@ -49,15 +79,16 @@ public class AIQnaController {
      */
     @GetMapping("/web-search")
     @Operation(summary = "联网搜索功能", description = "联网搜索功能")
-    public Flux<String> webSearch(@RequestParam(defaultValue = DEFAULT_QUESTION) String question) {
-        return aiQnaService.webSearch(question);
+    public Flux<String> webSearch(@RequestParam(defaultValue = DEFAULT_QUESTION) String question,
+                                  @RequestParam(required = false) String model) {
+        return aiQnaService.webSearch(question, model);
     }
 
     /**
      * 切换模型
      */
     @GetMapping("/switch-model")
-    @Operation(summary = "切换模型", description = "切换模型")
+    @Operation(summary = "切换模型", description = "切换默认模型，只影响之后发起的请求")
     public String switchModel(@RequestParam(defaultValue = "qwen-turbo") String model) {
         aiQnaService.changeModel(model);
         return "切换模型成功";
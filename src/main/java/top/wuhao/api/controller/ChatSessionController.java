@@ -6,11 +6,14 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.web.bind.annotation.*;
 import top.wuhao.api.common.result.Result;
 import top.wuhao.api.common.utils.SecurityUtils;
+import top.wuhao.api.entity.vo.ChatMessagePageVO;
 import top.wuhao.api.entity.vo.ChatSessionVO;
 import top.wuhao.api.entity.dto.CreateSessionDTO;
+import top.wuhao.api.entity.dto.MessagePageQuery;
 import top.wuhao.api.entity.dto.UpdateSessionDTO;
 import top.wuhao.api.service.IChatSessionManageService;
 
@@ -69,10 +72,10 @@ public class ChatSessionController {
     }
     
     /**
-     * 获取会话详细（包含所有消息）
+     * 获取会话详细（包含最新一页消息）
      */
     @GetMapping("/{id}")
-    @Operation(summary = "获取会话消息", description = "获取会话的详细信息，包含所有消息")
+    @Operation(summary = "获取会话详细", description = "获取会话的详细信息，包含最新一页消息")
     @SecurityRequirement(name = "Authorization")
     public Result<ChatSessionVO> getSessionDetail(
             @Parameter(description = "会话ID") @PathVariable Long id) {
@@ -81,6 +84,19 @@ public class ChatSessionController {
         return Result.ok(session);
     }
 
+    /**
+     * 游标分页获取会话消息
+     */
+    @GetMapping("/{id}/messages")
+    @Operation(summary = "分页获取会话消息", description = "按消息ID游标分页，before 加载更早的消息，after 加载更新的消息")
+    @SecurityRequirement(name = "Authorization")
+    public Result<ChatMessagePageVO> getSessionMessages(
+            @Parameter(description = "会话ID") @PathVariable Long id,
+            @ParameterObject MessagePageQuery query) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        ChatMessagePageVO page = chatSessionManageService.getSessionMessages(id, userId, query);
+        return Result.ok(page);
+    }
     
     /**
      * 删除会话（级联删除所有消息）
@@ -1,18 +1,21 @@
 package top.wuhao.api.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import cn.hutool.crypto.digest.DigestUtil;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import top.wuhao.api.common.cache.RequestCoalescer;
+import top.wuhao.api.common.cache.SemanticAnswerCache;
+import top.wuhao.api.common.exception.ServerException;
 import top.wuhao.api.common.result.Result;
+import top.wuhao.api.infrastructure.dashscope.DashScopeAgentProperties;
+import top.wuhao.api.infrastructure.dashscope.DashScopeAgentService;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
 /**
@@ -26,19 +29,10 @@ import java.util.regex.Pattern;
 @CrossOrigin(origins = "*")
 public class DashScopeAgentController {
 
-    @Value("${spring.ai.dashscope.agent.app-id}")
-    private String appId;
-
-    @Value("${spring.ai.dashscope.api-key}")
-    private String apiKey;
-
-    private static final String BASE_URL = "https://dashscope.aliyuncs.com/api/v1/apps";
-    
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
-    
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final DashScopeAgentService dashScopeAgentService;
+    private final DashScopeAgentProperties dashScopeAgentProperties;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final RequestCoalescer requestCoalescer;
 
     // 判断是否是模型相关或"你是谁"的问题
     private static final Pattern MODEL_QUESTION_PATTERN = Pattern.compile(
@@ -46,87 +40,92 @@ public class DashScopeAgentController {
             Pattern.CASE_INSENSITIVE
     );
 
+    private static final String MODEL_ANSWER = "您好，我是依托composer-1模型的智能助手，在Cursor IDE中为您提供代码编写和问题解答服务，你可以直接告诉我你的需求。";
+
     /**
-     * 调用阿里云智能体 API
-     * @param prompt 用户问题
+     * 调用阿里云智能体 API（异步，等待上游期间释放 Servlet 线程）
+     * @param request 用户问题
      * @return 格式化后的回答（Markdown格式）
      */
     @PostMapping("/chat")
-    public Result<String> chat(@RequestBody ChatRequest request) {
+    public CompletableFuture<Result<String>> chat(@RequestBody ChatRequest request) {
         String prompt = request.getPrompt();
         
         if (prompt == null || prompt.trim().isEmpty()) {
-            return Result.fail("问题不能为空");
+            return CompletableFuture.completedFuture(Result.fail("问题不能为空"));
         }
 
         // 判断是否是模型相关的问题
         if (MODEL_QUESTION_PATTERN.matcher(prompt).find()) {
-            return Result.ok("您好，我是依托composer-1模型的智能助手，在Cursor IDE中为您提供代码编写和问题解答服务，你可以直接告诉我你的需求。");
+            return CompletableFuture.completedFuture(Result.ok(MODEL_ANSWER));
         }
 
-        try {
-            String url = BASE_URL + "/" + appId + "/completion";
-            
-            String requestBody = String.format(
-                "{\"input\":{\"prompt\":\"%s\"},\"parameters\":{},\"debug\":{}}",
-                escapeJson(prompt)
-            );
-
-            HttpRequest httpRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .timeout(Duration.ofSeconds(30))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                // 解析响应，提取 text 字段
-                String responseBody = response.body();
-                String answer = extractTextFromResponse(responseBody);
-                
+        // 相同问题的并发请求只调用一次智能体
+        String key = "agent:" + DigestUtil.sha256Hex(prompt.trim());
+        return requestCoalescer.executeAsync(key,
+                        () -> semanticAnswerCache.getAsync("agent", prompt, () -> dashScopeAgentService.chat(prompt)))
                 // 返回格式化的 Markdown 内容
-                return Result.ok(answer);
-            } else {
-                return Result.fail("API 调用失败: " + response.statusCode() + " - " + response.body());
-            }
-        } catch (Exception e) {
-            return Result.fail("请求失败: " + e.getMessage());
-        }
+                .thenApply(Result::ok)
+                .exceptionally(this::toFailResult);
     }
 
     /**
-     * 从响应 JSON 中提取 text 字段
+     * 流式调用阿里云智能体 API（SSE）
+     * <p>
+     * 事件类型：message 为增量文本，done 表示结束，error 表示失败；空闲时发送注释心跳。
+     * 客户端断开后上游请求随之取消。
+     * @param request 用户问题
+     * @return SSE 事件流
      */
-    private String extractTextFromResponse(String jsonResponse) {
-        try {
-            JsonNode rootNode = objectMapper.readTree(jsonResponse);
-            JsonNode outputNode = rootNode.get("output");
-            if (outputNode != null) {
-                JsonNode textNode = outputNode.get("text");
-                if (textNode != null && textNode.isTextual()) {
-                    return textNode.asText();
-                }
-            }
-            // 如果解析失败，返回原始响应
-            return jsonResponse;
-        } catch (Exception e) {
-            // 解析失败时返回原始响应
-            return jsonResponse;
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatStream(@RequestBody ChatRequest request) {
+        String prompt = request.getPrompt();
+
+        if (prompt == null || prompt.trim().isEmpty()) {
+            return Flux.just(errorEvent("问题不能为空"));
+        }
+
+        if (MODEL_QUESTION_PATTERN.matcher(prompt).find()) {
+            return Flux.just(messageEvent(MODEL_ANSWER), doneEvent());
         }
+
+        // 相同问题的并发流式请求共享同一次上游调用，后加入者先收到已输出的片段
+        String key = "agent-stream:" + DigestUtil.sha256Hex(prompt.trim());
+        Flux<ServerSentEvent<String>> events = requestCoalescer
+                .stream(key, () -> dashScopeAgentService.chatStream(prompt))
+                .map(this::messageEvent)
+                .concatWith(Flux.just(doneEvent()))
+                .onErrorResume(e -> Flux.just(toFailResult(e)).map(result -> errorEvent(result.getMessage())));
+
+        // 在数据流结束前定时发送心跳
+        return events.publish(shared -> Flux.merge(shared,
+                Flux.interval(dashScopeAgentProperties.getHeartbeatInterval())
+                        .onBackpressureDrop()
+                        .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.then())));
+    }
+
+    private ServerSentEvent<String> messageEvent(String text) {
+        return ServerSentEvent.builder(text).event("message").build();
+    }
+
+    private ServerSentEvent<String> doneEvent() {
+        return ServerSentEvent.builder("[DONE]").event("done").build();
+    }
+
+    private ServerSentEvent<String> errorEvent(String message) {
+        return ServerSentEvent.builder(message).event("error").build();
     }
 
     /**
-     * 转义 JSON 字符串中的特殊字符
+     * 异常转换为失败结果
      */
-    private String escapeJson(String str) {
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+    private Result<String> toFailResult(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ServerException) {
+            return Result.fail(cause.getMessage());
+        }
+        return Result.fail("请求失败: " + cause.getMessage());
     }
 
     /**
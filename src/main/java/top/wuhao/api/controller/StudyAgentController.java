@@ -7,9 +7,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.web.bind.annotation.*;
 import top.wuhao.api.entity.dto.RequestDTO;
+import top.wuhao.api.infrastructure.checkpoint.StudyThreadRegistry;
 import top.wuhao.api.model.AssistantResponse;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -26,8 +26,8 @@ public class StudyAgentController {
 
     private final ReactAgent studyAgent;
 
-    // 存储用户的学习会话 threadId 映射
-    private final Map<String, String> userThreadMap = new HashMap<>();
+    // 用户的学习会话 threadId 注册表
+    private final StudyThreadRegistry studyThreadRegistry;
 
     /**
      * 学习助手聊天接口
@@ -40,7 +40,7 @@ public class StudyAgentController {
         String message = request.getMessage();
         
         // 为每个用户生成或获取 threadId，保持会话连续性
-        String threadId = userThreadMap.computeIfAbsent(userId, k -> UUID.randomUUID().toString());
+        String threadId = studyThreadRegistry.resolve(userId);
         
         // 创建配置，包含threadId和用户元数据
         RunnableConfig config = RunnableConfig.builder()
@@ -76,7 +76,7 @@ public class StudyAgentController {
      */
     @GetMapping("/history/{userId}")
     public Map<String, Object> getHistory(@PathVariable String userId) {
-        String threadId = userThreadMap.get(userId);
+        String threadId = studyThreadRegistry.find(userId);
         if (threadId == null) {
             return Map.of("error", "未找到该用户的学习历史记录");
         }
@@ -97,9 +97,8 @@ public class StudyAgentController {
      */
     @PostMapping("/reset/{userId}")
     public Map<String, Object> resetSession(@PathVariable String userId) {
-        String oldThreadId = userThreadMap.remove(userId);
         String newThreadId = UUID.randomUUID().toString();
-        userThreadMap.put(userId, newThreadId);
+        String oldThreadId = studyThreadRegistry.reset(userId, newThreadId);
         
         return Map.of(
                 "userId", userId,
@@ -1,6 +1,7 @@
 package top.wuhao.api.controller;
 
 
+import cn.hutool.core.util.StrUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,7 +10,6 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import top.wuhao.api.common.result.Result;
-import top.wuhao.api.common.utils.SecurityUtils;
 import top.wuhao.api.entity.dto.LoginDTO;
 import top.wuhao.api.entity.vo.TokenVO;
 import top.wuhao.api.service.IUserService;
@@ -41,9 +41,9 @@ public class UserController {
 
     @PostMapping("/logout")
     @Operation(summary = "登出", security = @SecurityRequirement(name = "Authorization"))
-    public Result<String> logout() {
-        Long userId = SecurityUtils.getCurrentUserId();
-        userService.logoutByUserId(userId);
+    public Result<String> logout(@RequestHeader("Authorization") String authorization) {
+        // 只撤销本次请求携带的 Token，不影响其他设备上的登录
+        userService.logout(StrUtil.removePrefix(authorization, "Bearer "));
         return Result.ok();
     }
 
@@ -0,0 +1,23 @@
+package top.wuhao.api.convert;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.entity.vo.ChatMessageVO;
+
+import java.util.List;
+
+/**
+ * 聊天消息对象转换
+ *
+ * @author wang
+ */
+@Mapper
+public interface ChatMessageConvert {
+
+    ChatMessageConvert INSTANCE = Mappers.getMapper(ChatMessageConvert.class);
+
+    ChatMessageVO convert(ChatMessage chatMessage);
+
+    List<ChatMessageVO> convertList(List<ChatMessage> list);
+}
@@ -0,0 +1,29 @@
+package top.wuhao.api.convert;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+import top.wuhao.api.entity.ChatSession;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+
+import java.util.List;
+
+/**
+ * 聊天会话对象转换
+ *
+ * @author wang
+ */
+@Mapper
+public interface ChatSessionConvert {
+
+    ChatSessionConvert INSTANCE = Mappers.getMapper(ChatSessionConvert.class);
+
+    /**
+     * 会话实体转VO，消息列表由调用方按需填充
+     */
+    @Mapping(target = "messages", ignore = true)
+    @Mapping(target = "hasMoreMessages", ignore = true)
+    ChatSessionVO convert(ChatSession chatSession);
+
+    List<ChatSessionVO> convertList(List<ChatSession> list);
+}
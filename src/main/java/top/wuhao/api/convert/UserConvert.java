@@ -0,0 +1,26 @@
+package top.wuhao.api.convert;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+import top.wuhao.api.entity.User;
+import top.wuhao.api.entity.vo.UserInfoVO;
+
+import java.util.List;
+
+/**
+ * 用户对象转换
+ *
+ * @author wang
+ */
+@Mapper
+public interface UserConvert {
+
+    UserConvert INSTANCE = Mappers.getMapper(UserConvert.class);
+
+    /**
+     * 用户实体转VO，UserInfoVO 不含密码字段
+     */
+    UserInfoVO convert(User user);
+
+    List<UserInfoVO> convertList(List<User> list);
+}
@@ -0,0 +1,52 @@
+package top.wuhao.api.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 智能体检查点表
+ * </p>
+ *
+ * @author wang
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("agent_checkpoint")
+public class AgentCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 会话线程ID
+     */
+    @TableId(value = "thread_id", type = IdType.INPUT)
+    private String threadId;
+
+    /**
+     * 检查点数据（最新为全量，其余为逆向增量）
+     */
+    private byte[] payload;
+
+    /**
+     * 检查点数量
+     */
+    private Integer checkpointCount;
+
+    /**
+     * 数据版本（毫秒时间，与 Redis 版本号可比较）
+     */
+    private Long version;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -26,9 +26,9 @@ public class ChatMessage implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * 消息ID
+     * 消息ID（雪花算法，异步批量写入需要在入库前确定ID）
      */
-    @TableId(value = "id", type = IdType.AUTO)
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
     private Long id;
 
     /**
@@ -0,0 +1,26 @@
+package top.wuhao.api.entity.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 会话消息分页查询DTO
+ *
+ * @author wang
+ */
+@Data
+@Schema(description = "会话消息分页查询（游标分页）")
+public class MessagePageQuery {
+
+    @Schema(description = "向前翻页游标：返回ID小于该值的消息")
+    private Long before;
+
+    @Schema(description = "向后翻页游标：返回ID大于该值的消息")
+    private Long after;
+
+    @Schema(description = "每页条数，不传使用默认值")
+    private Integer size;
+
+    @Schema(description = "是否返回思考链内容")
+    private Boolean withThinking;
+}
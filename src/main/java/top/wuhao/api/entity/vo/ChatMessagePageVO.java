@@ -0,0 +1,28 @@
+package top.wuhao.api.entity.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 会话消息分页VO
+ *
+ * @author wang
+ */
+@Data
+@Schema(description = "会话消息分页结果")
+public class ChatMessagePageVO {
+
+    @Schema(description = "消息列表（按时间正序）")
+    private List<ChatMessageVO> messages;
+
+    @Schema(description = "本页最早消息ID，作为 before 游标加载更早的消息")
+    private Long firstId;
+
+    @Schema(description = "本页最新消息ID，作为 after 游标加载更新的消息")
+    private Long lastId;
+
+    @Schema(description = "翻页方向上是否还有更多消息")
+    private Boolean hasMore;
+}
@@ -47,4 +47,7 @@ public class ChatSessionVO {
 
     @Schema(description = "会话消息列表")
     private List<ChatMessageVO> messages;
+
+    @Schema(description = "是否还有更早的消息")
+    private Boolean hasMoreMessages;
 }
\ No newline at end of file
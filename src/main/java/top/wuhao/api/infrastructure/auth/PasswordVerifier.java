@@ -0,0 +1,169 @@
+package top.wuhao.api.infrastructure.auth;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.exception.ServerException;
+import top.wuhao.api.config.PasswordProperties;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 密码校验
+ * <p>
+ * BCrypt 校验是刻意设计的 CPU 密集操作，放在独立的有界线程池中执行，线程数和排队数都有上限，
+ * 登录高峰或暴力破解时超出部分立即拒绝，不占用 Tomcat 线程的 CPU，普通接口不受影响。
+ * 校验成功的结果短时缓存，同一账号短时间内重复登录不再重复计算；缓存键是进程随机盐加用户、密码密文、
+ * 明文密码的 SHA-256，修改密码后密文变化，旧缓存自然失效。校验失败不缓存。
+ * 密文升级时的重新加密同样是 BCrypt 计算，放在单独的单线程低优先级线程池中，不与登录校验争抢线程和队列。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class PasswordVerifier implements DisposableBean {
+
+    /**
+     * 重新加密的排队上限，超出时丢弃，下次登录再试
+     */
+    private static final int UPGRADE_QUEUE_CAPACITY = 16;
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor upgradeExecutor;
+    private final Cache<String, Boolean> verified;
+    private final String salt = RandomUtil.randomString(32);
+    private final Timer verifyTimer;
+    private final Counter cacheHitCounter;
+    private final Counter rejectedCounter;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder, PasswordProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verifier-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.upgradeExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(UPGRADE_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-upgrader");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .build();
+        this.verifyTimer = Timer.builder("auth.password.verify")
+                .description("密码校验耗时（不含排队）")
+                .register(meterRegistry);
+        this.cacheHitCounter = Counter.builder("auth.password.cache.hits")
+                .description("密码校验缓存命中次数")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.rejected")
+                .description("校验线程池已满被拒绝的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 校验密码
+     *
+     * @param userId          用户ID
+     * @param rawPassword     明文密码
+     * @param encodedPassword 密码密文
+     * @return 是否匹配
+     * @throws ServerException 校验请求过多或等待超时
+     */
+    public boolean matches(Long userId, String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        boolean cacheEnabled = !properties.getCacheTtl().isZero();
+        String cacheKey = cacheEnabled ? cacheKey(userId, rawPassword, encodedPassword) : null;
+        if (cacheEnabled && verified.getIfPresent(cacheKey) != null) {
+            cacheHitCounter.increment();
+            return true;
+        }
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() ->
+                    verifyTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServerException("登录请求过多，请稍后再试");
+        }
+        boolean matched;
+        try {
+            matched = future.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServerException("登录请求过多，请稍后再试");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServerException("登录失败，请稍后再试");
+        } catch (ExecutionException e) {
+            log.error("密码校验异常，userId: {}", userId, e.getCause());
+            throw new ServerException("登录失败，请稍后再试");
+        }
+        if (matched && cacheEnabled) {
+            verified.put(cacheKey, Boolean.TRUE);
+        }
+        return matched;
+    }
+
+    /**
+     * 密文强度低于当前配置时，在后台以新强度重新加密，排队已满则跳过，下次登录再试
+     *
+     * @param rawPassword     已校验通过的明文密码
+     * @param encodedPassword 当前密文
+     * @param updater         保存新密文
+     */
+    public void upgradeIfNeeded(String rawPassword, String encodedPassword, Consumer<String> updater) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+        upgradeExecutor.execute(() -> {
+            try {
+                updater.accept(passwordEncoder.encode(rawPassword));
+            } catch (Exception e) {
+                log.warn("密码重新加密失败", e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        upgradeExecutor.shutdown();
+    }
+
+    private String cacheKey(Long userId, String rawPassword, String encodedPassword) {
+        return DigestUtil.sha256Hex(salt + ':' + userId + ':' + encodedPassword + ':' + rawPassword);
+    }
+}
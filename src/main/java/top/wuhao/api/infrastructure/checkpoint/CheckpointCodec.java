@@ -0,0 +1,216 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.jackson.SpringAIJacksonStateSerializer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 检查点二进制编解码
+ * <p>
+ * 每个会话线程只有最新检查点保存全量状态，其余检查点保存「由较新检查点还原出自身」的逆向增量：
+ * 删除的 key、截断的列表（如 messages 只是较新列表的前缀）以及变化的值。
+ * 这样裁剪最旧的检查点不会影响其他检查点的还原。所有条目都经过 Deflate 压缩。
+ * <p>
+ * 条目用 {@link DataOutputStream} 显式分帧：版本、类型、id、节点，增量的删除和截断信息，
+ * 最后是长度前缀的状态数据。状态数据沿用 Spring AI 状态序列化器的 Jackson 配置（消息类型的处理等），
+ * 但以 Smile 二进制格式编码，不经过 Java 序列化流。
+ *
+ * @author wang
+ */
+public class CheckpointCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte TYPE_FULL = 0;
+    private static final byte TYPE_DELTA = 1;
+
+    private static final TypeReference<Map<String, Object>> STATE_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper stateMapper = new SpringAIJacksonStateSerializer(OverAllState::new)
+            .objectMapper()
+            .copyWith(new SmileFactory());
+
+    /**
+     * 编码全量检查点
+     */
+    public byte[] encodeFull(Checkpoint checkpoint) {
+        return write(checkpoint, TYPE_FULL, out -> writeState(out, checkpoint.getState()));
+    }
+
+    /**
+     * 编码逆向增量：记录如何从 newer 还原出 older
+     */
+    public byte[] encodeDelta(Checkpoint older, Checkpoint newer) {
+        Map<String, Object> base = newer.getState();
+        Map<String, Object> target = older.getState();
+
+        List<String> removed = new ArrayList<>();
+        for (String key : base.keySet()) {
+            if (!target.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        Map<String, Integer> truncated = new LinkedHashMap<>();
+        Map<String, Object> changed = new HashMap<>();
+        for (Map.Entry<String, Object> entry : target.entrySet()) {
+            String key = entry.getKey();
+            Object olderValue = entry.getValue();
+            Object newerValue = base.get(key);
+            if (base.containsKey(key) && same(olderValue, newerValue)) {
+                continue;
+            }
+            if (olderValue instanceof List<?> olderList && newerValue instanceof List<?> newerList
+                    && isPrefix(olderList, newerList)) {
+                truncated.put(key, olderList.size());
+                continue;
+            }
+            changed.put(key, olderValue);
+        }
+
+        return write(older, TYPE_DELTA, out -> {
+            out.writeInt(removed.size());
+            for (String key : removed) {
+                out.writeUTF(key);
+            }
+            out.writeInt(truncated.size());
+            for (Map.Entry<String, Integer> entry : truncated.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            writeState(out, changed);
+        });
+    }
+
+    /**
+     * 解码检查点
+     *
+     * @param bytes 编码数据
+     * @param newer 较新的检查点，解码增量时必传，解码全量时忽略
+     */
+    public Checkpoint decode(byte[] bytes, Checkpoint newer) {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(bytes), inflater))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("不支持的检查点编码版本: " + version);
+            }
+            byte type = in.readByte();
+            String id = in.readUTF();
+            String nodeId = readNullable(in);
+            String nextNodeId = readNullable(in);
+
+            Map<String, Object> state;
+            if (type == TYPE_FULL) {
+                state = readState(in);
+            } else {
+                Objects.requireNonNull(newer, "解码增量检查点需要较新的检查点");
+                Map<String, Object> base = newer.getState();
+                state = new HashMap<>(base);
+                int removedCount = in.readInt();
+                for (int i = 0; i < removedCount; i++) {
+                    state.remove(in.readUTF());
+                }
+                int truncatedCount = in.readInt();
+                for (int i = 0; i < truncatedCount; i++) {
+                    String key = in.readUTF();
+                    int size = in.readInt();
+                    state.put(key, new ArrayList<>(((List<?>) base.get(key)).subList(0, size)));
+                }
+                state.putAll(readState(in));
+            }
+            return Checkpoint.builder()
+                    .id(id)
+                    .state(state)
+                    .nodeId(nodeId)
+                    .nextNodeId(nextNodeId)
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("检查点解码失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] write(Checkpoint checkpoint, byte type, BodyWriter body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(VERSION);
+            out.writeByte(type);
+            out.writeUTF(checkpoint.getId());
+            writeNullable(out, checkpoint.getNodeId());
+            writeNullable(out, checkpoint.getNextNodeId());
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("检查点编码失败", e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean same(Object a, Object b) {
+        return a == b || Objects.equals(a, b);
+    }
+
+    private static boolean isPrefix(List<?> prefix, List<?> list) {
+        if (prefix.size() > list.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            if (!same(prefix.get(i), list.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeState(DataOutputStream out, Map<String, Object> state) throws IOException {
+        byte[] data = stateMapper.writeValueAsBytes(state);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private Map<String, Object> readState(DataInputStream in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return stateMapper.readValue(data, STATE_TYPE);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,38 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 智能体检查点存储配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "study.agent.checkpoint")
+public class CheckpointProperties {
+
+    /**
+     * 每个会话线程保留的最近检查点数量
+     */
+    private int maxCheckpoints = 10;
+
+    /**
+     * 会话线程空闲过期时间（Redis TTL）
+     */
+    private Duration idleTtl = Duration.ofDays(7);
+
+    /**
+     * 本地缓存的活跃会话线程数上限
+     */
+    private long localMaximumSize = 2000;
+
+    /**
+     * 本地缓存空闲过期时间，过期后下次访问从 Redis 重新加载
+     */
+    private Duration localIdleExpire = Duration.ofMinutes(30);
+}
@@ -0,0 +1,507 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.entity.AgentCheckpoint;
+import top.wuhao.api.mapper.AgentCheckpointMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于 Redis 的智能体检查点存储，Redis 不可用时落到 MySQL
+ * <p>
+ * 每个会话线程在 Redis 中是一个列表，头部为最新检查点（全量），其余为逆向增量，只保留最近 N 个，
+ * 空闲超过 TTL 自动过期。活跃线程在本地按访问过期缓存已还原的检查点，首次访问时才从存储加载。
+ * <p>
+ * 列表旁边保存一个版本号，每次写入都在脚本中比较并更新（compare-and-set）。本地缓存记录加载时的版本号，
+ * 每次读写前先与 Redis 比对，不一致说明其他节点写过，重新加载；写入时版本号冲突则重新加载后重试。
+ * <p>
+ * Redis 写入失败时整份数据落到 MySQL，并记录一个同样以毫秒时间为下限的版本号。加载时两边都读取，
+ * 取版本号较新的一份：MySQL 较新说明 Redis 故障期间有写入，用它回写 Redis 后删除 MySQL 数据；
+ * Redis 较新则 MySQL 中是过期数据，直接删除。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class RedisCheckpointSaver implements BaseCheckpointSaver {
+
+    private static final String DEFAULT_THREAD_ID = "$default";
+
+    /**
+     * 版本号冲突时的最大尝试次数
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * 读取版本号和整个列表
+     * KEYS[1] 列表 key；KEYS[2] 版本号 key；返回 {版本号, 检查点...}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>("""
+            local result = {redis.call('GET', KEYS[2]) or '0'}
+            for _, entry in ipairs(redis.call('LRANGE', KEYS[1], 0, -1)) do
+                result[#result + 1] = entry
+            end
+            return result
+            """, List.class);
+
+    /**
+     * 追加检查点：版本号与期望一致时，把旧头部改写为增量、压入新的全量头部并裁剪
+     * KEYS[1] 列表 key；KEYS[2] 版本号 key；
+     * ARGV[1] 新头部；ARGV[2] 旧头部的增量；ARGV[3] 保留数量；ARGV[4] TTL 秒；ARGV[5] 期望版本号；ARGV[6] 当前毫秒时间
+     * 返回新版本号，版本号不一致返回 -1。新版本号不小于当前时间，key 过期重建后也不会与旧版本号重复
+     */
+    private static final RedisScript<Long> PUSH_SCRIPT = new DefaultRedisScript<>("""
+            local version = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if version ~= tonumber(ARGV[5]) then
+                return -1
+            end
+            if redis.call('LLEN', KEYS[1]) > 0 then
+                redis.call('LSET', KEYS[1], 0, ARGV[2])
+            end
+            redis.call('LPUSH', KEYS[1], ARGV[1])
+            redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[3]) - 1)
+            redis.call('EXPIRE', KEYS[1], tonumber(ARGV[4]))
+            local next = math.max(version + 1, tonumber(ARGV[6]))
+            redis.call('SET', KEYS[2], string.format('%d', next), 'EX', tonumber(ARGV[4]))
+            return next
+            """, Long.class);
+
+    /**
+     * 版本号与期望一致时整体重写检查点列表
+     * KEYS[1] 列表 key；KEYS[2] 版本号 key；ARGV[1] TTL 秒；ARGV[2] 期望版本号；ARGV[3] 当前毫秒时间；
+     * ARGV[4..] 检查点（由新到旧）。返回新版本号，版本号不一致返回 -1
+     */
+    private static final RedisScript<Long> REWRITE_SCRIPT = new DefaultRedisScript<>("""
+            local version = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if version ~= tonumber(ARGV[2]) then
+                return -1
+            end
+            redis.call('DEL', KEYS[1])
+            for i = 4, #ARGV do
+                redis.call('RPUSH', KEYS[1], ARGV[i])
+            end
+            redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+            local next = math.max(version + 1, tonumber(ARGV[3]))
+            redis.call('SET', KEYS[2], string.format('%d', next), 'EX', tonumber(ARGV[1]))
+            return next
+            """, Long.class);
+
+    /**
+     * 删除检查点列表，版本号递增而不是删除，其他节点的本地缓存随之失效
+     * KEYS[1] 列表 key；KEYS[2] 版本号 key；ARGV[1] TTL 秒；ARGV[2] 当前毫秒时间
+     */
+    private static final RedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            local next = math.max(tonumber(redis.call('GET', KEYS[2]) or '0') + 1, tonumber(ARGV[2]))
+            redis.call('SET', KEYS[2], string.format('%d', next), 'EX', tonumber(ARGV[1]))
+            return next
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final AgentCheckpointMapper agentCheckpointMapper;
+    private final CheckpointProperties properties;
+    private final CheckpointCodec codec = new CheckpointCodec();
+    private final Cache<String, ThreadCheckpoints> localCache;
+
+    public RedisCheckpointSaver(RedisTemplate<String, Object> redisTemplate,
+                                AgentCheckpointMapper agentCheckpointMapper,
+                                CheckpointProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.agentCheckpointMapper = agentCheckpointMapper;
+        this.properties = properties;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterAccess(properties.getLocalIdleExpire())
+                .build();
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        ThreadCheckpoints thread = current(threadIdOf(config));
+        thread.lock.lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(thread.checkpoints));
+        } finally {
+            thread.lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        ThreadCheckpoints thread = current(threadIdOf(config));
+        thread.lock.lock();
+        try {
+            if (config.checkPointId().isPresent()) {
+                String checkPointId = config.checkPointId().get();
+                return thread.checkpoints.stream()
+                        .filter(checkpoint -> checkpoint.getId().equals(checkPointId))
+                        .findFirst();
+            }
+            return Optional.ofNullable(thread.checkpoints.peekFirst());
+        } finally {
+            thread.lock.unlock();
+        }
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        String threadId = threadIdOf(config);
+        for (int attempt = 1; ; attempt++) {
+            ThreadCheckpoints thread = current(threadId);
+            thread.lock.lock();
+            try {
+                if (thread.stale) {
+                    // 等锁期间被其他请求判定为过期，重新获取
+                    continue;
+                }
+                RunnableConfig result = apply(threadId, thread, config, checkpoint);
+                if (result != null) {
+                    return result;
+                }
+                // 其他节点已写入，丢弃本地数据后基于最新数据重试
+                evict(threadId, thread);
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new IllegalStateException("检查点并发写入冲突，threadId: " + threadId);
+                }
+            } finally {
+                thread.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean clear(RunnableConfig config) {
+        String threadId = threadIdOf(config);
+        ThreadCheckpoints thread = localCache.getIfPresent(threadId);
+        if (thread != null) {
+            evict(threadId, thread);
+        }
+        try {
+            redisTemplate.execute(CLEAR_SCRIPT, RedisSerializer.byteArray(), null,
+                    versionedKeys(threadId), bytes(ttlSeconds()), bytes(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("删除 Redis 检查点失败，threadId: {}", threadId, e);
+        }
+        agentCheckpointMapper.deleteById(threadId);
+        return true;
+    }
+
+    /**
+     * 在本地数据上应用写入并持久化，版本号冲突时返回 null
+     */
+    private RunnableConfig apply(String threadId, ThreadCheckpoints thread, RunnableConfig config,
+                                 Checkpoint checkpoint) {
+        LinkedList<Checkpoint> checkpoints = thread.checkpoints;
+        if (config.checkPointId().isPresent()) {
+            // 替换已有检查点，增量链随之变化，整体重写
+            String checkPointId = config.checkPointId().get();
+            int index = indexOf(checkpoints, checkPointId);
+            if (index < 0) {
+                throw new NoSuchElementException(String.format("Checkpoint with id %s not found!", checkPointId));
+            }
+            checkpoints.set(index, checkpoint);
+            return persistAll(threadId, thread) ? config : null;
+        }
+
+        Checkpoint previousHead = checkpoints.peekFirst();
+        checkpoints.addFirst(checkpoint);
+        while (checkpoints.size() > properties.getMaxCheckpoints()) {
+            checkpoints.removeLast();
+        }
+        if (!persistPush(threadId, thread, checkpoint, previousHead)) {
+            return null;
+        }
+        return RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+    }
+
+    /**
+     * 取本地缓存的检查点，版本号与 Redis 不一致时重新加载；Redis 不可用时使用本地数据
+     */
+    private ThreadCheckpoints current(String threadId) {
+        ThreadCheckpoints thread = localCache.get(threadId, this::load);
+        Long version = readVersion(threadId);
+        if (version == null || version == thread.version) {
+            return thread;
+        }
+        evict(threadId, thread);
+        return localCache.get(threadId, this::load);
+    }
+
+    private void evict(String threadId, ThreadCheckpoints thread) {
+        thread.stale = true;
+        localCache.asMap().remove(threadId, thread);
+    }
+
+    private Long readVersion(String threadId) {
+        try {
+            byte[] rawKey = RedisKeys.getAgentCheckpointVersionKey(threadId).getBytes(StandardCharsets.UTF_8);
+            byte[] raw = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(rawKey));
+            return raw == null ? 0L : Long.parseLong(new String(raw, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.debug("读取检查点版本号失败，使用本地数据，threadId: {}", threadId, e);
+            return null;
+        }
+    }
+
+    private String threadIdOf(RunnableConfig config) {
+        return config.threadId().orElse(DEFAULT_THREAD_ID);
+    }
+
+    private static List<String> versionedKeys(String threadId) {
+        return List.of(RedisKeys.getAgentCheckpointKey(threadId), RedisKeys.getAgentCheckpointVersionKey(threadId));
+    }
+
+    private static int indexOf(List<Checkpoint> checkpoints, String checkPointId) {
+        for (int i = 0; i < checkpoints.size(); i++) {
+            if (checkpoints.get(i).getId().equals(checkPointId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 懒加载：读取 Redis 和 MySQL 兜底数据，取版本号较新的一份，并把两边收敛到 Redis
+     */
+    @SuppressWarnings("unchecked")
+    private ThreadCheckpoints load(String threadId) {
+        ThreadCheckpoints thread = new ThreadCheckpoints();
+        List<byte[]> entries = List.of();
+        boolean redisAvailable = false;
+        try {
+            List<byte[]> result = redisTemplate.execute(READ_SCRIPT, RedisSerializer.byteArray(),
+                    RedisSerializer.byteArray(), versionedKeys(threadId));
+            if (result != null && !result.isEmpty()) {
+                thread.version = Long.parseLong(new String(result.get(0), StandardCharsets.UTF_8));
+                entries = result.subList(1, result.size());
+            }
+            redisAvailable = true;
+        } catch (Exception e) {
+            log.warn("读取 Redis 检查点失败，尝试 MySQL，threadId: {}", threadId, e);
+        }
+
+        AgentCheckpoint row = agentCheckpointMapper.selectById(threadId);
+        if (row != null && (!redisAvailable || versionOf(row) > thread.version)) {
+            // Redis 故障期间写入过 MySQL，以 MySQL 为准
+            entries = unpack(row.getPayload());
+            thread.fallbackVersion = versionOf(row);
+            if (redisAvailable) {
+                try {
+                    rewrite(threadId, thread, entries);
+                } catch (Exception e) {
+                    log.warn("回写 Redis 检查点失败，继续使用 MySQL 数据，threadId: {}", threadId, e);
+                }
+            }
+        } else if (row != null) {
+            agentCheckpointMapper.deleteByVersion(threadId, versionOf(row));
+        }
+        thread.checkpoints.addAll(decodeAll(threadId, entries));
+        return thread;
+    }
+
+    private static long versionOf(AgentCheckpoint row) {
+        return row.getVersion() == null ? 0L : row.getVersion();
+    }
+
+    private List<Checkpoint> decodeAll(String threadId, List<byte[]> entries) {
+        List<Checkpoint> checkpoints = new ArrayList<>(entries.size());
+        Checkpoint newer = null;
+        for (byte[] entry : entries) {
+            try {
+                newer = codec.decode(entry, newer);
+            } catch (Exception e) {
+                // 之后的增量都依赖当前条目，直接截断
+                log.warn("检查点解码失败，丢弃更早的检查点，threadId: {}", threadId, e);
+                break;
+            }
+            checkpoints.add(newer);
+        }
+        return checkpoints;
+    }
+
+    private List<byte[]> encodeAll(List<Checkpoint> checkpoints) {
+        List<byte[]> entries = new ArrayList<>(checkpoints.size());
+        Checkpoint newer = null;
+        for (Checkpoint checkpoint : checkpoints) {
+            entries.add(newer == null ? codec.encodeFull(checkpoint) : codec.encodeDelta(checkpoint, newer));
+            newer = checkpoint;
+        }
+        return entries;
+    }
+
+    /**
+     * 追加写：正常情况只传输新的全量头部和旧头部的增量；数据只在 MySQL 中时整体重写
+     *
+     * @return 是否已写入（包括降级到 MySQL），版本号冲突返回 false
+     */
+    private boolean persistPush(String threadId, ThreadCheckpoints thread, Checkpoint head, Checkpoint previousHead) {
+        if (thread.fallbackVersion > 0) {
+            return persistAll(threadId, thread);
+        }
+        byte[] full = codec.encodeFull(head);
+        byte[] delta = previousHead == null ? new byte[0] : codec.encodeDelta(previousHead, head);
+        try {
+            Long version = redisTemplate.execute(PUSH_SCRIPT, RedisSerializer.byteArray(), null,
+                    versionedKeys(threadId), full, delta, bytes(properties.getMaxCheckpoints()),
+                    bytes(ttlSeconds()), bytes(thread.version), bytes(System.currentTimeMillis()));
+            return updateVersion(thread, version);
+        } catch (Exception e) {
+            log.warn("写入 Redis 检查点失败，降级到 MySQL，threadId: {}", threadId, e);
+            persistFallback(threadId, thread, encodeAll(thread.checkpoints));
+            return true;
+        }
+    }
+
+    /**
+     * 整体重写
+     *
+     * @return 是否已写入（包括降级到 MySQL），版本号冲突返回 false
+     */
+    private boolean persistAll(String threadId, ThreadCheckpoints thread) {
+        List<byte[]> entries = encodeAll(thread.checkpoints);
+        try {
+            return rewrite(threadId, thread, entries);
+        } catch (Exception e) {
+            log.warn("写入 Redis 检查点失败，降级到 MySQL，threadId: {}", threadId, e);
+            persistFallback(threadId, thread, entries);
+            return true;
+        }
+    }
+
+    /**
+     * 按本地版本号比较并重写 Redis 列表，成功后删除对应版本的 MySQL 数据
+     *
+     * @return 版本号冲突返回 false
+     */
+    private boolean rewrite(String threadId, ThreadCheckpoints thread, List<byte[]> entries) {
+        Object[] args = new Object[entries.size() + 3];
+        args[0] = bytes(ttlSeconds());
+        args[1] = bytes(thread.version);
+        args[2] = bytes(System.currentTimeMillis());
+        for (int i = 0; i < entries.size(); i++) {
+            args[i + 3] = entries.get(i);
+        }
+        Long version = redisTemplate.execute(REWRITE_SCRIPT, RedisSerializer.byteArray(), null,
+                versionedKeys(threadId), args);
+        if (!updateVersion(thread, version)) {
+            return false;
+        }
+        if (thread.fallbackVersion > 0) {
+            agentCheckpointMapper.deleteByVersion(threadId, thread.fallbackVersion);
+            thread.fallbackVersion = 0;
+        }
+        return true;
+    }
+
+    private static boolean updateVersion(ThreadCheckpoints thread, Long version) {
+        if (version == null || version < 0) {
+            return false;
+        }
+        thread.version = version;
+        return true;
+    }
+
+    /**
+     * 写入 MySQL 兜底数据，版本号大于本地已知的 Redis 版本号，恢复后加载时以它为准
+     */
+    private void persistFallback(String threadId, ThreadCheckpoints thread, List<byte[]> entries) {
+        long version = Math.max(Math.max(thread.version, thread.fallbackVersion) + 1, System.currentTimeMillis());
+        AgentCheckpoint row = new AgentCheckpoint()
+                .setThreadId(threadId)
+                .setPayload(pack(entries))
+                .setCheckpointCount(entries.size())
+                .setVersion(version)
+                .setUpdateTime(LocalDateTime.now());
+        agentCheckpointMapper.upsert(row);
+        thread.fallbackVersion = version;
+    }
+
+    private long ttlSeconds() {
+        return Math.max(1, properties.getIdleTtl().toSeconds());
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * MySQL 中的存储格式：条目数 + 每个条目的长度和内容
+     */
+    private static byte[] pack(List<byte[]> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(entries.size());
+            for (byte[] entry : entries) {
+                out.writeInt(entry.length);
+                out.write(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<byte[]> unpack(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int count = in.readInt();
+            List<byte[]> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] entry = new byte[in.readInt()];
+                in.readFully(entry);
+                entries.add(entry);
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 单个会话线程的检查点，由新到旧排列
+     */
+    private static final class ThreadCheckpoints {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedList<Checkpoint> checkpoints = new LinkedList<>();
+        /**
+         * 当前数据只在 MySQL 中时为其版本号，下次写 Redis 时需要整体重写；0 表示不在兜底状态
+         */
+        private long fallbackVersion;
+        /**
+         * 本地数据对应的 Redis 版本号，0 表示 Redis 中没有
+         */
+        private volatile long version;
+        /**
+         * 已从本地缓存移除，持有者需要重新获取
+         */
+        private volatile boolean stale;
+    }
+}
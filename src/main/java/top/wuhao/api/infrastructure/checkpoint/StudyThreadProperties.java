@@ -0,0 +1,33 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 学习助手会话线程注册表配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "study.agent.thread")
+public class StudyThreadProperties {
+
+    /**
+     * 本地缓存的用户会话数上限
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 会话空闲过期时间
+     */
+    private Duration idleExpire = Duration.ofHours(2);
+
+    /**
+     * 是否通过 Redis 在多个节点间共享 threadId
+     */
+    private boolean redisEnabled = true;
+}
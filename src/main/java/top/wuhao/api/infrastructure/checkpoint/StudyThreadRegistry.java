@@ -0,0 +1,216 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 学习助手会话线程注册表
+ * <p>
+ * 维护 userId → threadId 的映射：本地为有界、按访问过期的并发缓存，开启 Redis 时以 SETNX 保证
+ * 多个节点为同一用户解析出相同的 threadId。重置时通过 Redis 发布订阅通知其他节点丢弃本地映射；
+ * 消息丢失时，每半个空闲周期续期 Redis 时顺带比对一次，本地映射最多滞后半个空闲周期。
+ * Redis 不可用时退化为仅本地。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class StudyThreadRegistry implements MessageListener {
+
+    private final RedisCache redisCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final StudyThreadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, ThreadEntry> localCache;
+
+    public StudyThreadRegistry(RedisCache redisCache, StringRedisTemplate stringRedisTemplate,
+                               StudyThreadProperties properties, RedisMessageListenerContainer listenerContainer,
+                               MeterRegistry meterRegistry) {
+        this.redisCache = redisCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterAccess(properties.getIdleExpire())
+                .evictionListener((String userId, ThreadEntry entry, RemovalCause cause) -> countEviction(cause))
+                .build();
+        Gauge.builder("study.thread.sessions", localCache, Cache::estimatedSize)
+                .description("学习助手本地活跃会话数")
+                .register(meterRegistry);
+        if (properties.isRedisEnabled()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getStudyThreadChannel()));
+        }
+    }
+
+    /**
+     * 获取用户的 threadId，不存在时创建
+     *
+     * @param userId 用户ID
+     * @return threadId
+     */
+    public String resolve(String userId) {
+        ThreadEntry entry = localCache.get(userId, this::loadOrCreate);
+        refreshRemote(userId, entry);
+        return entry.threadId;
+    }
+
+    /**
+     * 查找用户的 threadId，不存在时不创建
+     *
+     * @param userId 用户ID
+     * @return threadId，不存在返回 null
+     */
+    public String find(String userId) {
+        ThreadEntry entry = localCache.getIfPresent(userId);
+        if (entry != null) {
+            return entry.threadId;
+        }
+        String threadId = readRemote(userId);
+        if (threadId != null) {
+            localCache.put(userId, new ThreadEntry(threadId));
+        }
+        return threadId;
+    }
+
+    /**
+     * 为用户分配新的 threadId
+     *
+     * @param userId      用户ID
+     * @param newThreadId 新的 threadId
+     * @return 原 threadId，不存在返回 null
+     */
+    public String reset(String userId, String newThreadId) {
+        ThreadEntry old = localCache.asMap().put(userId, new ThreadEntry(newThreadId));
+        String oldThreadId = old != null ? old.threadId : readRemote(userId);
+        if (properties.isRedisEnabled()) {
+            try {
+                redisCache.set(RedisKeys.getStudyThreadKey(userId), newThreadId, ttlSeconds(), TimeUnit.SECONDS);
+                stringRedisTemplate.convertAndSend(RedisKeys.getStudyThreadChannel(), userId + ":" + newThreadId);
+            } catch (Exception e) {
+                log.warn("写入学习会话线程失败，userId: {}", userId, e);
+            }
+        }
+        return oldThreadId;
+    }
+
+    /**
+     * 其他节点重置了用户的 threadId，丢弃本地不一致的映射，下次访问从 Redis 读取
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator <= 0) {
+            log.warn("无法解析学习会话线程重置消息: {}", body);
+            return;
+        }
+        String userId = body.substring(0, separator);
+        String threadId = body.substring(separator + 1);
+        localCache.asMap().computeIfPresent(userId,
+                (key, entry) -> entry.threadId.equals(threadId) ? entry : null);
+    }
+
+    private ThreadEntry loadOrCreate(String userId) {
+        String threadId = readRemote(userId);
+        if (threadId != null) {
+            return new ThreadEntry(threadId);
+        }
+        String created = UUID.randomUUID().toString();
+        if (!properties.isRedisEnabled()) {
+            return new ThreadEntry(created);
+        }
+        String key = RedisKeys.getStudyThreadKey(userId);
+        try {
+            if (!redisCache.setIfAbsent(key, created, ttlSeconds(), TimeUnit.SECONDS)) {
+                // 其他节点已抢先创建
+                String existing = redisCache.get(key, String.class);
+                if (existing != null) {
+                    return new ThreadEntry(existing);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("写入学习会话线程失败，userId: {}", userId, e);
+        }
+        return new ThreadEntry(created);
+    }
+
+    private String readRemote(String userId) {
+        if (!properties.isRedisEnabled()) {
+            return null;
+        }
+        try {
+            return redisCache.get(RedisKeys.getStudyThreadKey(userId), String.class);
+        } catch (Exception e) {
+            log.warn("读取学习会话线程失败，userId: {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 本地命中时 Redis 不会被访问，每半个空闲周期续期一次，避免 Redis 中的映射先于本地过期；
+     * 同时比对 Redis 中的 threadId，兜底丢失的重置消息
+     */
+    private void refreshRemote(String userId, ThreadEntry entry) {
+        if (!properties.isRedisEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long interval = properties.getIdleExpire().toMillis() / 2;
+        long last = entry.refreshedAt;
+        if (now - last < interval) {
+            return;
+        }
+        entry.refreshedAt = now;
+        try {
+            redisCache.expire(RedisKeys.getStudyThreadKey(userId), ttlSeconds(), TimeUnit.SECONDS);
+            String remote = redisCache.get(RedisKeys.getStudyThreadKey(userId), String.class);
+            if (remote != null && !remote.equals(entry.threadId)) {
+                localCache.asMap().replace(userId, entry, new ThreadEntry(remote));
+            }
+        } catch (Exception e) {
+            log.warn("续期学习会话线程失败，userId: {}", userId, e);
+        }
+    }
+
+    private long ttlSeconds() {
+        return Math.max(1, properties.getIdleExpire().toSeconds());
+    }
+
+    private void countEviction(RemovalCause cause) {
+        Counter.builder("study.thread.evictions")
+                .description("学习助手本地会话淘汰次数")
+                .tag("cause", cause.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 本地缓存条目，新建时 refreshedAt 为 0，首次访问即续期 Redis
+     */
+    private static final class ThreadEntry {
+        private final String threadId;
+        private volatile long refreshedAt;
+
+        private ThreadEntry(String threadId) {
+            this.threadId = threadId;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package top.wuhao.api.infrastructure.context;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.cache.RequestCoalescer;
+import top.wuhao.api.common.exception.ServerException;
+import top.wuhao.api.config.ChatOptionsFactory;
+import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.entity.ChatSession;
+import top.wuhao.api.infrastructure.message.ChatMessageWriteBehind;
+import top.wuhao.api.mapper.ChatMessageMapper;
+import top.wuhao.api.mapper.ChatSessionMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话上下文构建器
+ * <p>
+ * 在 token 预算内由新到旧装入会话历史，预算之外的旧消息累计到一定量后增量合并进滚动摘要，
+ * 摘要及其覆盖到的消息ID缓存在 Redis 中。每次请求只读取预算内的消息和少量溢出消息，
+ * 提示词长度与会话轮数无关。摘要在后台线程中按 summarizeMaxTokens 分段合并，不阻塞当前请求；
+ * 摘要记录的边界始终是实际合并进去的最后一条消息，未合并的消息留给下一段或下一次合并。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatContextBuilder {
+
+    private static final String SUMMARY_PROMPT = """
+            请将新增对话合并进已有摘要，输出更新后的完整摘要。
+            要求：保留用户的目标、关键事实、已得出的结论和尚未解决的问题，删除寒暄和重复内容，不超过 %d 字，只输出摘要本身。
+            已有摘要：
+            %s
+            新增对话：
+            %s
+            """;
+
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_LAST_ID = "lastId";
+
+    /**
+     * 单次后台合并最多调用模型的次数，剩余部分由后续请求继续触发
+     */
+    private static final int MAX_FOLD_ROUNDS = 5;
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final ChatSessionMapper chatSessionMapper;
+    private final ChatMessageWriteBehind chatMessageWriteBehind;
+    private final ChatClient dashScopeChatClient;
+    private final ChatOptionsFactory chatOptionsFactory;
+    private final RedisCache redisCache;
+    private final RequestCoalescer requestCoalescer;
+    private final ChatContextProperties properties;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    /**
+     * 构建发送给模型的消息列表：系统提示（含历史摘要）+ 预算内的历史消息 + 当前问题
+     *
+     * @param sessionId    会话ID
+     * @param userId       用户ID
+     * @param systemPrompt 系统提示词
+     * @param question     当前问题
+     * @return 消息列表
+     */
+    public List<Message> build(Long sessionId, Long userId, String systemPrompt, String question) {
+        ChatSession session = chatSessionMapper.selectById(sessionId);
+        if (session == null || !session.getUserId().equals(userId)) {
+            throw new ServerException("会话不存在或无权限访问");
+        }
+
+        RollingSummary summary = readSummary(sessionId);
+        int budget = properties.getHistoryTokenBudget() - TokenEstimator.estimateMessage(question);
+        Window window = loadWindow(sessionId, summary.lastSummarizedId(), budget);
+        if (window.overflowTokens() >= properties.getSummarizeBatchTokens()) {
+            // 后台合并，本次请求使用已有摘要；同一会话的并发请求只触发一次合并
+            requestCoalescer.executeAsync("chat-summary:" + sessionId,
+                    () -> CompletableFuture.supplyAsync(() -> fold(sessionId, window.boundaryId()),
+                            applicationTaskExecutor))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.warn("会话摘要合并失败，sessionId: {}", sessionId, error);
+                        }
+                    });
+        }
+
+        List<Message> messages = new ArrayList<>(window.messages().size() + 2);
+        String system = StrUtil.isBlank(summary.text())
+                ? systemPrompt
+                : systemPrompt + "\n\n以下是此前对话的摘要：\n" + summary.text();
+        messages.add(new SystemMessage(system));
+        for (ChatMessage chatMessage : window.messages()) {
+            if ("user".equals(chatMessage.getRole())) {
+                messages.add(new UserMessage(chatMessage.getContent()));
+            } else if ("assistant".equals(chatMessage.getRole())) {
+                messages.add(new AssistantMessage(chatMessage.getContent()));
+            }
+        }
+        messages.add(new UserMessage(question));
+        return messages;
+    }
+
+    /**
+     * 由新到旧读取摘要之后的消息，预算内的放入窗口，之后的只统计 token，达到合并阈值即停止
+     */
+    private Window loadWindow(Long sessionId, long afterId, int budget) {
+        Deque<ChatMessage> included = new ArrayDeque<>();
+        int used = 0;
+        int overflow = 0;
+        boolean full = false;
+        Long boundaryId = null;
+        Long beforeId = null;
+        while (overflow < properties.getSummarizeBatchTokens()) {
+            List<ChatMessage> page = selectPage(sessionId, afterId, beforeId, false);
+            for (ChatMessage chatMessage : page) {
+                int tokens = TokenEstimator.estimateMessage(chatMessage.getContent());
+                if (!full && used + tokens <= budget) {
+                    included.addFirst(chatMessage);
+                    used += tokens;
+                    boundaryId = chatMessage.getId();
+                    continue;
+                }
+                if (!full) {
+                    full = true;
+                    if (boundaryId == null) {
+                        boundaryId = chatMessage.getId() + 1;
+                    }
+                }
+                overflow += tokens;
+            }
+            if (page.size() < properties.getPageSize()) {
+                break;
+            }
+            beforeId = page.get(page.size() - 1).getId();
+        }
+        return new Window(new ArrayList<>(included), overflow, boundaryId);
+    }
+
+    /**
+     * 将摘要之后、boundaryId 之前的消息按顺序分段合并进摘要，每段最多 summarizeMaxTokens
+     */
+    private RollingSummary fold(Long sessionId, Long boundaryId) {
+        RollingSummary current = readSummary(sessionId);
+        for (int round = 0; round < MAX_FOLD_ROUNDS; round++) {
+            RollingSummary next = foldChunk(sessionId, boundaryId, current);
+            if (next == current) {
+                break;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * 合并一段消息，摘要边界只推进到这一段实际合并的最后一条消息；没有可合并的消息或调用失败时返回 current
+     */
+    private RollingSummary foldChunk(Long sessionId, Long boundaryId, RollingSummary current) {
+        StringBuilder transcript = new StringBuilder();
+        long lastId = current.lastSummarizedId();
+        int tokens = 0;
+        boolean done = false;
+        while (!done) {
+            List<ChatMessage> page = selectPage(sessionId, lastId, boundaryId, true);
+            for (ChatMessage chatMessage : page) {
+                int messageTokens = TokenEstimator.estimateMessage(chatMessage.getContent());
+                if (tokens > 0 && tokens + messageTokens > properties.getSummarizeMaxTokens()) {
+                    done = true;
+                    break;
+                }
+                transcript.append("user".equals(chatMessage.getRole()) ? "用户：" : "助手：")
+                        .append(chatMessage.getContent())
+                        .append('\n');
+                tokens += messageTokens;
+                lastId = chatMessage.getId();
+            }
+            if (page.size() < properties.getPageSize()) {
+                done = true;
+            }
+        }
+        if (lastId == current.lastSummarizedId()) {
+            return current;
+        }
+
+        String prompt = SUMMARY_PROMPT.formatted(properties.getSummaryTokenBudget(),
+                StrUtil.blankToDefault(current.text(), "无"), transcript);
+        String text;
+        try {
+            text = dashScopeChatClient.prompt(new Prompt(prompt, chatOptionsFactory.defaults())).call().content();
+        } catch (Exception e) {
+            log.warn("会话摘要生成失败，本次跳过，sessionId: {}", sessionId, e);
+            return current;
+        }
+        if (StrUtil.isBlank(text)) {
+            return current;
+        }
+        // 其他节点已合并得更远时不回退
+        if (readSummary(sessionId).lastSummarizedId() > current.lastSummarizedId()) {
+            return current;
+        }
+        RollingSummary updated = new RollingSummary(StrUtil.maxLength(text.trim(), properties.getSummaryTokenBudget()), lastId);
+        writeSummary(sessionId, updated);
+        return updated;
+    }
+
+    private List<ChatMessage> selectPage(Long sessionId, long afterId, Long beforeId, boolean ascending) {
+        LambdaQueryWrapper<ChatMessage> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(ChatMessage::getId, ChatMessage::getRole, ChatMessage::getContent)
+                .eq(ChatMessage::getSessionId, sessionId)
+                .gt(ChatMessage::getId, afterId)
+                .lt(beforeId != null, ChatMessage::getId, beforeId)
+                .orderBy(true, ascending, ChatMessage::getId)
+                .last("LIMIT " + properties.getPageSize());
+        List<ChatMessage> rows = chatMessageMapper.selectList(queryWrapper);
+        return chatMessageWriteBehind.mergePending(sessionId, rows, afterId, beforeId, ascending, properties.getPageSize());
+    }
+
+    private RollingSummary readSummary(Long sessionId) {
+        try {
+            Map<Object, Object> values = redisCache.hGetAll(RedisKeys.getChatSummaryKey(sessionId));
+            Object text = values.get(FIELD_TEXT);
+            Object lastId = values.get(FIELD_LAST_ID);
+            if (text == null || !(lastId instanceof Number number)) {
+                return RollingSummary.EMPTY;
+            }
+            return new RollingSummary(text.toString(), number.longValue());
+        } catch (Exception e) {
+            log.warn("读取会话摘要失败，sessionId: {}", sessionId, e);
+            return RollingSummary.EMPTY;
+        }
+    }
+
+    private void writeSummary(Long sessionId, RollingSummary summary) {
+        try {
+            redisCache.hPutAll(RedisKeys.getChatSummaryKey(sessionId),
+                    Map.of(FIELD_TEXT, summary.text(), FIELD_LAST_ID, summary.lastSummarizedId()),
+                    properties.getSummaryTtl().toSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入会话摘要失败，sessionId: {}", sessionId, e);
+        }
+    }
+
+    /**
+     * 滚动摘要及其覆盖到的最后一条消息ID
+     */
+    private record RollingSummary(String text, long lastSummarizedId) {
+        private static final RollingSummary EMPTY = new RollingSummary("", 0L);
+    }
+
+    /**
+     * 预算内的消息（由旧到新）、溢出的 token 数、窗口中最早消息的ID（之前的消息可合并进摘要）
+     */
+    private record Window(List<ChatMessage> messages, int overflowTokens, Long boundaryId) {
+    }
+}
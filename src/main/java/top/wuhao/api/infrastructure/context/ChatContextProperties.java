@@ -0,0 +1,48 @@
+package top.wuhao.api.infrastructure.context;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 会话上下文构建配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.context")
+public class ChatContextProperties {
+
+    /**
+     * 历史消息（不含摘要和当前问题）的 token 预算
+     */
+    private int historyTokenBudget = 3000;
+
+    /**
+     * 滚动摘要的 token 上限
+     */
+    private int summaryTokenBudget = 600;
+
+    /**
+     * 超出预算的消息累计到该 token 数后才合并进摘要，避免每轮都调用模型
+     */
+    private int summarizeBatchTokens = 1500;
+
+    /**
+     * 每次合并进摘要的消息 token 上限，限制单次摘要调用的输入大小
+     */
+    private int summarizeMaxTokens = 6000;
+
+    /**
+     * 从数据库按批读取消息的条数
+     */
+    private int pageSize = 20;
+
+    /**
+     * 滚动摘要缓存过期时间
+     */
+    private Duration summaryTtl = Duration.ofDays(7);
+}
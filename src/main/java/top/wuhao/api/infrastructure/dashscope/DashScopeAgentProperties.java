@@ -0,0 +1,48 @@
+package top.wuhao.api.infrastructure.dashscope;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * DashScope 智能体应用配置属性
+ *
+ * @author wang
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.ai.dashscope.agent")
+public class DashScopeAgentProperties {
+
+    /**
+     * 智能体应用 ID
+     */
+    private String appId;
+
+    /**
+     * 应用 API 地址
+     */
+    private String baseUrl = "https://dashscope.aliyuncs.com/api/v1/apps";
+
+    /**
+     * 连接超时
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 请求超时
+     */
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * HTTP 客户端回调线程数（只处理响应回调，不阻塞等待上游）
+     */
+    private int ioThreads = 4;
+
+    /**
+     * 流式输出时的心跳间隔，避免代理或浏览器因空闲断开连接
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
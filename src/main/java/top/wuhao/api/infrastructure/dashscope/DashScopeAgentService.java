@@ -0,0 +1,31 @@
+package top.wuhao.api.infrastructure.dashscope;
+
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DashScope 智能体应用服务接口
+ *
+ * @author wang
+ */
+public interface DashScopeAgentService {
+
+    /**
+     * 异步调用智能体应用，不占用调用方线程等待上游
+     *
+     * @param prompt 用户问题
+     * @return 智能体回答（output.text），失败时以 ServerException 结束
+     */
+    CompletableFuture<String> chat(String prompt);
+
+    /**
+     * 流式调用智能体应用（SSE 增量输出）
+     * <p>
+     * 按下游请求量向上游拉取数据；取消订阅时同时取消上游 HTTP 请求。
+     *
+     * @param prompt 用户问题
+     * @return 增量文本片段
+     */
+    Flux<String> chatStream(String prompt);
+}
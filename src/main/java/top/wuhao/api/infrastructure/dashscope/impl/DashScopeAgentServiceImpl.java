@@ -0,0 +1,274 @@
+package top.wuhao.api.infrastructure.dashscope.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import top.wuhao.api.common.exception.ServerException;
+import top.wuhao.api.infrastructure.dashscope.DashScopeAgentProperties;
+import top.wuhao.api.infrastructure.dashscope.DashScopeAgentService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DashScope 智能体应用服务实现
+ * <p>
+ * 基于 JDK HttpClient（HTTP/2，连接复用）的异步调用：请求体用 JsonGenerator 直接写出，
+ * 响应用 JsonParser 流式定位 output.text，不构建整棵 JSON 树。流式调用按 SSE 行读取，背压透传到上游。
+ *
+ * @author wang
+ */
+@Slf4j
+@Service
+public class DashScopeAgentServiceImpl implements DashScopeAgentService, DisposableBean {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final DashScopeAgentProperties properties;
+    private final String apiKey;
+    private final ExecutorService ioExecutor;
+    private final HttpClient httpClient;
+
+    public DashScopeAgentServiceImpl(DashScopeAgentProperties properties,
+                                     @Value("${spring.ai.dashscope.api-key}") String apiKey) {
+        this.properties = properties;
+        this.apiKey = apiKey;
+        this.ioExecutor = Executors.newFixedThreadPool(properties.getIoThreads(), new NamedThreadFactory("dashscope-http-"));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .executor(ioExecutor)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<String> chat(String prompt) {
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+                .uri(completionUri())
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(buildRequestBody(prompt, false)))
+                .timeout(properties.getRequestTimeout())
+                .build();
+
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    byte[] body = response.body();
+                    if (response.statusCode() != 200) {
+                        throw new ServerException("API 调用失败: " + response.statusCode() + " - "
+                                + new String(body, StandardCharsets.UTF_8));
+                    }
+                    String text = extractOutputText(body);
+                    // 解析失败时返回原始响应
+                    return text != null ? text : new String(body, StandardCharsets.UTF_8);
+                });
+    }
+
+    @Override
+    public Flux<String> chatStream(String prompt) {
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+                .uri(completionUri())
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .header("X-DashScope-SSE", "enable")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(buildRequestBody(prompt, true)))
+                .timeout(properties.getRequestTimeout())
+                .build();
+
+        return Flux.create(sink -> {
+            SseLineSubscriber subscriber = new SseLineSubscriber(sink);
+            CompletableFuture<HttpResponse<Void>> future = httpClient.sendAsync(httpRequest, responseInfo -> {
+                if (responseInfo.statusCode() == 200) {
+                    return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+                }
+                // 非 200 时读取完整错误信息后结束
+                return HttpResponse.BodySubscribers.<String, Void>mapping(
+                        HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                        body -> {
+                            sink.error(new ServerException("API 调用失败: " + responseInfo.statusCode() + " - " + body));
+                            return null;
+                        });
+            });
+            future.whenComplete((response, error) -> {
+                if (error != null) {
+                    sink.error(error);
+                }
+            });
+            // 客户端断开时取消上游请求
+            sink.onCancel(() -> {
+                subscriber.cancel();
+                future.cancel(true);
+            });
+        });
+    }
+
+    private URI completionUri() {
+        return URI.create(properties.getBaseUrl() + "/" + properties.getAppId() + "/completion");
+    }
+
+    /**
+     * 构建请求体：{"input":{"prompt":...},"parameters":{},"debug":{}}，流式时开启增量输出
+     */
+    private byte[] buildRequestBody(String prompt, boolean incrementalOutput) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(prompt.length() * 3 + 64);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("input");
+            generator.writeStringField("prompt", prompt);
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("parameters");
+            if (incrementalOutput) {
+                generator.writeBooleanField("incremental_output", true);
+            }
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("debug");
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 流式读取 output.text，找到即返回，其余字段直接跳过
+     *
+     * @return text 内容，不存在或解析失败时返回 null
+     */
+    static String extractOutputText(byte[] json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("output".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String outputField = parser.getCurrentName();
+                        JsonToken outputValue = parser.nextToken();
+                        if ("text".equals(outputField) && outputValue == JsonToken.VALUE_STRING) {
+                            return parser.getText();
+                        }
+                        parser.skipChildren();
+                    }
+                    return null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            log.warn("解析智能体响应失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * SSE 行订阅者：解析 data 行中的 output.text 推送给下游。
+     * 每行消耗一个下游请求量，未产生输出的行（id、event、空行等）立即补拉一行。
+     */
+    private static class SseLineSubscriber implements Flow.Subscriber<String> {
+
+        private static final String DATA_PREFIX = "data:";
+        private static final String EVENT_PREFIX = "event:";
+
+        private final FluxSink<String> sink;
+        private volatile Flow.Subscription subscription;
+        private boolean errorEvent;
+
+        SseLineSubscriber(FluxSink<String> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            sink.onRequest(subscription::request);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith(EVENT_PREFIX)) {
+                errorEvent = "error".equals(line.substring(EVENT_PREFIX.length()).trim());
+                subscription.request(1);
+                return;
+            }
+            if (!line.startsWith(DATA_PREFIX)) {
+                subscription.request(1);
+                return;
+            }
+            byte[] data = line.substring(DATA_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+            if (errorEvent) {
+                sink.error(new ServerException("API 调用失败: " + new String(data, StandardCharsets.UTF_8)));
+                return;
+            }
+            String text = extractOutputText(data);
+            if (text == null || text.isEmpty()) {
+                subscription.request(1);
+                return;
+            }
+            sink.next(text);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            sink.error(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            sink.complete();
+        }
+
+        void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ioExecutor.shutdown();
+    }
+
+    /**
+     * 带名称前缀的守护线程工厂
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
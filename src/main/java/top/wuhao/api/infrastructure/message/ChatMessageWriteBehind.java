@@ -0,0 +1,482 @@
+package top.wuhao.api.infrastructure.message;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.wuhao.api.config.ChatMessageProperties;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.infrastructure.session.SessionPreview;
+import top.wuhao.api.mapper.ChatMessageMapper;
+import top.wuhao.api.mapper.ChatSessionMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 聊天消息异步批量写入（write-behind）
+ * <p>
+ * 消息先分配ID并追加到本地日志，再进入有界内存队列，由单个后台线程按条数或时间攒批后多行插入。
+ * 消息插入和会话最后一条消息的更新在同一事务中完成。
+ * 日志按分段存储，分段内消息全部落库后删除；进程重启时回放残留分段（INSERT IGNORE 保证幂等）。
+ * 未落库的消息保存在按会话划分的内存视图中，读取时与数据库结果合并，保证读到自己刚写入的消息。
+ * 落库时对所涉及的会话加共享锁并跳过已删除（或已被清理）会话的消息，避免留下孤立消息。
+ * 日志锁使用 ReentrantLock 而不是 synchronized，虚拟线程在文件 IO 期间不会固定载体线程。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class ChatMessageWriteBehind implements InitializingBean, DisposableBean {
+
+    private static final String SEGMENT_PREFIX = "chat-message-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte NEW_LINE = '\n';
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final ChatSessionMapper chatSessionMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChatMessageProperties.WriteBehind properties;
+    private final int previewLength;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<PendingMessage> queue;
+    private final Map<Long, ConcurrentSkipListMap<Long, ChatMessage>> overlay = new ConcurrentHashMap<>();
+
+    /**
+     * 以下字段由 logLock 保护
+     */
+    private final ReentrantLock logLock = new ReentrantLock();
+    private final Map<Long, Integer> segmentPending = new TreeMap<>();
+    private FileChannel segmentChannel;
+    private long segmentId;
+    private long segmentSize;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ChatMessageWriteBehind(ChatMessageMapper chatMessageMapper,
+                                  ChatSessionMapper chatSessionMapper,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  ChatMessageProperties chatMessageProperties,
+                                  ChatSessionProperties chatSessionProperties,
+                                  MeterRegistry meterRegistry) {
+        this.chatMessageMapper = chatMessageMapper;
+        this.chatSessionMapper = chatSessionMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = chatMessageProperties.getWriteBehind();
+        this.previewLength = chatSessionProperties.getPreviewLength();
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    /**
+     * 是否开启异步批量写入
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Path dir = Paths.get(properties.getLogDir());
+        Files.createDirectories(dir);
+        long lastSegmentId = replay(dir);
+        logLock.lock();
+        try {
+            openSegment(lastSegmentId + 1);
+        } finally {
+            logLock.unlock();
+        }
+        Gauge.builder("chat.message.write.behind.queue", queue, BlockingQueue::size)
+                .description("待落库的聊天消息数")
+                .register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "chat-message-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 提交消息：分配ID、写日志、入队，立即返回
+     *
+     * @param message 待保存的消息
+     */
+    public void submit(ChatMessage message) {
+        // 与 ChatMessage 的 ASSIGN_ID 主键策略使用同一个雪花算法生成器
+        message.setId(IdWorker.getId());
+        if (queue.remainingCapacity() == 0) {
+            // 队列已满，退化为同步写入，形成背压
+            insertNow(message);
+            return;
+        }
+        long segment = append(message);
+        overlay.computeIfAbsent(message.getSessionId(), k -> new ConcurrentSkipListMap<>())
+                .put(message.getId(), message);
+        PendingMessage pending = new PendingMessage(message, segment);
+        if (!queue.offer(pending)) {
+            insertNow(message);
+            complete(pending);
+        }
+    }
+
+    /**
+     * 会话已删除：丢弃本节点内存视图中该会话的消息，落库时这些消息会因会话已删除被跳过
+     *
+     * @param sessionId 会话ID
+     */
+    public void discardSession(Long sessionId) {
+        overlay.remove(sessionId);
+    }
+
+    /**
+     * 将尚未落库的消息合并进数据库查询结果
+     *
+     * @param sessionId 会话ID
+     * @param rows      数据库查询结果
+     * @param afterId   只合并ID大于该值的消息，可为空
+     * @param beforeId  只合并ID小于该值的消息，可为空
+     * @param ascending 结果是否按ID正序
+     * @param limit     结果条数上限
+     * @return 合并后的结果
+     */
+    public List<ChatMessage> mergePending(Long sessionId, List<ChatMessage> rows, Long afterId, Long beforeId,
+                                          boolean ascending, int limit) {
+        ConcurrentSkipListMap<Long, ChatMessage> pending = overlay.get(sessionId);
+        if (pending == null || pending.isEmpty()) {
+            return rows;
+        }
+        NavigableMap<Long, ChatMessage> range = pending;
+        if (afterId != null) {
+            range = range.tailMap(afterId, false);
+        }
+        if (beforeId != null) {
+            range = range.headMap(beforeId, false);
+        }
+        if (range.isEmpty()) {
+            return rows;
+        }
+        // 刚落库但尚未移出内存视图的消息会同时出现在两边，按ID去重
+        TreeMap<Long, ChatMessage> merged = new TreeMap<>(ascending ? Comparator.<Long>naturalOrder() : Comparator.<Long>reverseOrder());
+        for (ChatMessage row : rows) {
+            merged.put(row.getId(), row);
+        }
+        merged.putAll(range);
+        List<ChatMessage> result = new ArrayList<>(Math.min(merged.size(), limit));
+        for (ChatMessage message : merged.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(message);
+        }
+        return result;
+    }
+
+    private void flushLoop() {
+        List<PendingMessage> batch = new ArrayList<>(properties.getBatchSize());
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + intervalNanos;
+                while (batch.size() < properties.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批消息，失败时退避重试；停机阶段放弃重试，消息保留在日志中等待下次启动回放
+     */
+    private void flush(List<PendingMessage> batch) throws InterruptedException {
+        List<ChatMessage> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message());
+        }
+        long backoffMillis = 200;
+        while (true) {
+            try {
+                insertWithSessions(messages);
+                count("flushed", messages.size());
+                for (PendingMessage pending : batch) {
+                    complete(pending);
+                }
+                return;
+            } catch (Exception e) {
+                count("failed", messages.size());
+                if (!running) {
+                    log.error("停机前消息批量写入失败，{} 条消息保留在本地日志中", messages.size(), e);
+                    return;
+                }
+                log.warn("消息批量写入失败，{} ms 后重试，条数: {}", backoffMillis, messages.size(), e);
+                TimeUnit.MILLISECONDS.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, 30_000);
+            }
+        }
+    }
+
+    private void insertNow(ChatMessage message) {
+        insertWithSessions(List.of(message));
+        count("sync", 1);
+    }
+
+    /**
+     * 在同一事务中插入消息并更新所涉及会话的最后一条消息；会话加共享锁，已删除会话的消息直接丢弃
+     */
+    private void insertWithSessions(List<ChatMessage> messages) {
+        Map<Long, ChatMessage> latest = new HashMap<>();
+        for (ChatMessage message : messages) {
+            latest.merge(message.getSessionId(), message, (a, b) -> a.getId() > b.getId() ? a : b);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> live = new HashSet<>(chatSessionMapper.selectLiveSessionIdsForShare(latest.keySet()));
+            List<ChatMessage> accepted = messages;
+            if (live.size() < latest.size()) {
+                accepted = messages.stream().filter(message -> live.contains(message.getSessionId())).toList();
+                count("discarded", messages.size() - accepted.size());
+                latest.keySet().retainAll(live);
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+            chatMessageMapper.insertBatch(accepted);
+            for (ChatMessage message : latest.values()) {
+                chatSessionMapper.updateLastMessage(message.getSessionId(),
+                        SessionPreview.of(message.getContent(), previewLength), message.getCreateTime());
+            }
+        });
+    }
+
+    /**
+     * 消息已落库：移出内存视图，分段内消息全部落库后删除分段
+     */
+    private void complete(PendingMessage pending) {
+        ChatMessage message = pending.message();
+        overlay.computeIfPresent(message.getSessionId(), (sessionId, messages) -> {
+            messages.remove(message.getId());
+            return messages.isEmpty() ? null : messages;
+        });
+        logLock.lock();
+        try {
+            Integer remaining = segmentPending.merge(pending.segment(), -1, Integer::sum);
+            if (remaining != null && remaining <= 0 && pending.segment() != segmentId) {
+                segmentPending.remove(pending.segment());
+                deleteSegment(pending.segment());
+            }
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /**
+     * 追加一条消息到当前日志分段
+     *
+     * @return 分段ID
+     */
+    private long append(ChatMessage message) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException("消息序列化失败", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put(NEW_LINE).flip();
+        logLock.lock();
+        try {
+            if (segmentSize >= properties.getSegmentBytes()) {
+                rotateSegment();
+            }
+            while (buffer.hasRemaining()) {
+                segmentSize += segmentChannel.write(buffer);
+            }
+            if (properties.isSyncWrites()) {
+                segmentChannel.force(false);
+            }
+            segmentPending.merge(segmentId, 1, Integer::sum);
+            return segmentId;
+        } catch (IOException e) {
+            throw new UncheckedIOException("消息日志写入失败", e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void rotateSegment() throws IOException {
+        long previous = segmentId;
+        segmentChannel.close();
+        openSegment(previous + 1);
+        if (segmentPending.getOrDefault(previous, 0) <= 0) {
+            segmentPending.remove(previous);
+            deleteSegment(previous);
+        }
+    }
+
+    private void openSegment(long id) {
+        try {
+            segmentChannel = FileChannel.open(segmentPath(id),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segmentId = id;
+            segmentSize = segmentChannel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开消息日志失败", e);
+        }
+    }
+
+    private void deleteSegment(long id) {
+        try {
+            Files.deleteIfExists(segmentPath(id));
+        } catch (IOException e) {
+            log.warn("删除消息日志分段失败，segment: {}", id, e);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return Paths.get(properties.getLogDir(), SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 回放残留的日志分段
+     *
+     * @return 已存在的最大分段ID
+     */
+    private long replay(Path dir) throws IOException {
+        List<Long> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        long lastSegmentId = 0;
+        for (Long id : segments) {
+            lastSegmentId = Math.max(lastSegmentId, id);
+            int replayed = replaySegment(segmentPath(id));
+            if (replayed > 0) {
+                log.info("回放消息日志分段 {}，条数: {}", id, replayed);
+            }
+            deleteSegment(id);
+        }
+        return lastSegmentId;
+    }
+
+    private int replaySegment(Path path) throws IOException {
+        List<ChatMessage> batch = new ArrayList<>(properties.getBatchSize());
+        int total = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, ChatMessage.class));
+                } catch (IOException e) {
+                    // 崩溃时最后一行可能不完整
+                    log.warn("跳过无法解析的消息日志行，file: {}", path, e);
+                    continue;
+                }
+                if (batch.size() >= properties.getBatchSize()) {
+                    insertWithSessions(batch);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertWithSessions(batch);
+            total += batch.size();
+        }
+        count("replayed", total);
+        return total;
+    }
+
+    private void count(String result, int amount) {
+        if (amount <= 0) {
+            return;
+        }
+        Counter.builder("chat.message.write.behind")
+                .description("聊天消息异步写入情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.join(properties.getShutdownTimeout().toMillis());
+        logLock.lock();
+        try {
+            segmentChannel.close();
+            if (segmentPending.getOrDefault(segmentId, 0) <= 0) {
+                deleteSegment(segmentId);
+            }
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /**
+     * 待落库的消息及其所在的日志分段
+     */
+    private record PendingMessage(ChatMessage message, long segment) {
+    }
+}
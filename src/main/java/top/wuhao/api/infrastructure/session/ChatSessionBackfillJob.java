@@ -0,0 +1,102 @@
+package top.wuhao.api.infrastructure.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.entity.ChatSession;
+import top.wuhao.api.mapper.ChatSessionMapper;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史会话最后一条消息回填任务
+ * <p>
+ * 按会话ID游标分批处理 last_message_time 为空的会话，每个会话一条 UPDATE JOIN 语句回填。
+ * 游标保存在 Redis 中，重启或切换节点后从上次位置继续；多节点通过 Redis 锁保证同一时间只有一个节点在跑。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class ChatSessionBackfillJob {
+
+    private static final long DONE = -1L;
+    private static final long LOCK_SECONDS = 60;
+
+    private final ChatSessionMapper chatSessionMapper;
+    private final ChatSessionIndex chatSessionIndex;
+    private final RedisCache redisCache;
+    private final ChatSessionProperties properties;
+    private final Counter backfilledCounter;
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean finished;
+
+    public ChatSessionBackfillJob(ChatSessionMapper chatSessionMapper, ChatSessionIndex chatSessionIndex,
+                                  RedisCache redisCache, ChatSessionProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.chatSessionMapper = chatSessionMapper;
+        this.chatSessionIndex = chatSessionIndex;
+        this.redisCache = redisCache;
+        this.properties = properties;
+        this.backfilledCounter = Counter.builder("chat.session.backfill")
+                .description("已回填最后一条消息的会话数")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.session.backfill.interval-millis:1000}")
+    public void runChunk() {
+        ChatSessionProperties.Backfill backfill = properties.getBackfill();
+        if (!backfill.isEnabled() || finished) {
+            return;
+        }
+        String lockKey = RedisKeys.getSessionBackfillLockKey();
+        if (!redisCache.setIfAbsent(lockKey, instanceId, LOCK_SECONDS, TimeUnit.SECONDS)) {
+            return;
+        }
+        try {
+            long cursor = readCursor();
+            if (cursor == DONE) {
+                finished = true;
+                return;
+            }
+            List<ChatSession> sessions = chatSessionMapper.selectBackfillCandidates(cursor, backfill.getChunkSize());
+            if (sessions.isEmpty()) {
+                redisCache.set(RedisKeys.getSessionBackfillCursorKey(), DONE);
+                finished = true;
+                log.info("会话最后一条消息回填完成");
+                return;
+            }
+            Set<Long> userIds = new LinkedHashSet<>();
+            int updated = 0;
+            for (ChatSession session : sessions) {
+                updated += chatSessionMapper.backfillLastMessage(session.getId(), properties.getPreviewLength());
+                userIds.add(session.getUserId());
+            }
+            long lastId = sessions.get(sessions.size() - 1).getId();
+            redisCache.set(RedisKeys.getSessionBackfillCursorKey(), lastId);
+            backfilledCounter.increment(updated);
+            // 已缓存的会话列表不含预览，清除后按需重建
+            userIds.forEach(chatSessionIndex::invalidate);
+            log.debug("会话最后一条消息回填，cursor: {}, 会话数: {}, 更新数: {}", lastId, sessions.size(), updated);
+        } catch (Exception e) {
+            log.warn("会话最后一条消息回填失败，下次继续", e);
+        } finally {
+            // 只释放自己持有的锁
+            redisCache.compareAndDelete(lockKey, instanceId);
+        }
+    }
+
+    private long readCursor() {
+        Object cursor = redisCache.get(RedisKeys.getSessionBackfillCursorKey());
+        return cursor instanceof Number number ? number.longValue() : 0L;
+    }
+}
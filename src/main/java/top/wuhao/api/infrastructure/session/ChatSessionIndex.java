@@ -0,0 +1,292 @@
+package top.wuhao.api.infrastructure.session;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 用户会话列表索引
+ * <p>
+ * 每个用户在 Redis 中维护一个按「收藏 + 更新时间」打分的 ZSET 和一个会话摘要 HASH，侧边栏直接从中读取。
+ * 会话的增删改和消息写入在事务提交后增量更新索引；索引不存在（未建立或已过期）时跳过更新，
+ * 由下一次读取从数据库重建。HASH 中的 {@code _} 字段标记索引已建立。
+ * <p>
+ * 重建前先写入一个重建令牌再查数据库，所有增量更新都会删除该令牌；写回时令牌已变化说明查库期间有写入提交，
+ * 查到的快照可能已过时，放弃写回，由下一次读取重新重建。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class ChatSessionIndex {
+
+    /**
+     * 收藏会话的分数偏移，大于任何毫秒时间戳，保证收藏会话排在前面
+     */
+    private static final long STAR_OFFSET = 10_000_000_000_000L;
+    /**
+     * 重建令牌有效期，覆盖一次数据库查询
+     */
+    private static final Duration REBUILD_TOKEN_TTL = Duration.ofSeconds(30);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LIST_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[2], '_') == 0 then
+                return false
+            end
+            local ids = redis.call('ZREVRANGE', KEYS[1], 0, -1)
+            if #ids == 0 then
+                return {}
+            end
+            return redis.call('HMGET', KEYS[2], unpack(ids))
+            """, List.class);
+
+    /**
+     * KEYS[3] 重建令牌；ARGV[1] TTL 秒；ARGV[2] 重建令牌；ARGV[3..] 每个会话依次为 ID、分数、JSON
+     */
+    private static final RedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[3]) ~= ARGV[2] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+            for i = 3, #ARGV, 3 do
+                redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])
+                redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 2])
+            end
+            redis.call('HSET', KEYS[2], '_', '1')
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> UPSERT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[3])
+            if redis.call('HEXISTS', KEYS[2], '_') == 0 then
+                return 0
+            end
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[3])
+            if redis.call('HEXISTS', KEYS[2], '_') == 0 then
+                return 0
+            end
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * 消息写入：保留收藏位更新分数，并更新摘要中的时间和最后一条消息
+     * ARGV[1] 会话ID；ARGV[2] 毫秒时间戳；ARGV[3] 格式化时间；ARGV[4] 最后一条消息（空串表示不更新）
+     */
+    private static final RedisScript<Long> TOUCH_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[3])
+            if redis.call('HEXISTS', KEYS[2], '_') == 0 then
+                return 0
+            end
+            local score = redis.call('ZSCORE', KEYS[1], ARGV[1])
+            local json = redis.call('HGET', KEYS[2], ARGV[1])
+            if not score or not json then
+                return 0
+            end
+            local star = math.floor(tonumber(score) / 10000000000000)
+            redis.call('ZADD', KEYS[1], string.format('%d', star * 10000000000000 + tonumber(ARGV[2])), ARGV[1])
+            local session = cjson.decode(json)
+            session['updateTime'] = ARGV[3]
+            if ARGV[4] ~= '' then
+                session['lastMessage'] = ARGV[4]
+                session['lastMessageTime'] = ARGV[3]
+            end
+            redis.call('HSET', KEYS[2], ARGV[1], cjson.encode(session))
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChatSessionProperties properties;
+
+    public ChatSessionIndex(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper,
+                            ChatSessionProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * 读取用户会话列表
+     *
+     * @param userId 用户ID
+     * @return 会话列表，索引不存在或读取失败时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public List<ChatSessionVO> list(Long userId) {
+        try {
+            List<Object> values = stringRedisTemplate.execute(LIST_SCRIPT, keys(userId));
+            if (values == null) {
+                return null;
+            }
+            List<ChatSessionVO> sessions = new ArrayList<>(values.size());
+            for (Object value : values) {
+                if (value == null) {
+                    // ZSET 与 HASH 不一致，视为未命中
+                    return null;
+                }
+                sessions.add(objectMapper.readValue(value.toString(), ChatSessionVO.class));
+            }
+            return sessions;
+        } catch (Exception e) {
+            log.warn("读取会话列表索引失败，userId: {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 开始重建：在查询数据库之前调用
+     *
+     * @param userId 用户ID
+     * @return 重建令牌，Redis 不可用时返回 null
+     */
+    public String beginRebuild(Long userId) {
+        String token = UUID.randomUUID().toString();
+        try {
+            stringRedisTemplate.opsForValue().set(RedisKeys.getSessionIndexBuildingKey(userId), token,
+                    REBUILD_TOKEN_TTL);
+            return token;
+        } catch (Exception e) {
+            log.warn("写入会话列表重建令牌失败，userId: {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 用数据库查询结果重建索引，查库期间有写入提交时放弃
+     *
+     * @param userId   用户ID
+     * @param token    {@link #beginRebuild} 返回的令牌
+     * @param sessions 用户的全部会话
+     */
+    public void rebuild(Long userId, String token, List<ChatSessionVO> sessions) {
+        if (token == null) {
+            return;
+        }
+        try {
+            List<String> args = new ArrayList<>(sessions.size() * 3 + 2);
+            args.add(String.valueOf(properties.getIndexTtl().toSeconds()));
+            args.add(token);
+            for (ChatSessionVO session : sessions) {
+                args.add(String.valueOf(session.getId()));
+                args.add(String.valueOf(score(session)));
+                args.add(toJson(session));
+            }
+            stringRedisTemplate.execute(REBUILD_SCRIPT, keys(userId), args.toArray());
+        } catch (Exception e) {
+            log.warn("重建会话列表索引失败，userId: {}", userId, e);
+        }
+    }
+
+    /**
+     * 新增或更新会话，事务提交后生效
+     */
+    public void upsert(ChatSessionVO session) {
+        Long userId = session.getUserId();
+        afterCommit(userId, () -> stringRedisTemplate.execute(UPSERT_SCRIPT, keys(userId),
+                String.valueOf(session.getId()), String.valueOf(score(session)), toJson(session)));
+    }
+
+    /**
+     * 移除会话，事务提交后生效
+     */
+    public void remove(Long userId, Long sessionId) {
+        afterCommit(userId, () -> stringRedisTemplate.execute(REMOVE_SCRIPT, keys(userId), String.valueOf(sessionId)));
+    }
+
+    /**
+     * 会话有新消息，事务提交后生效
+     *
+     * @param userId      用户ID
+     * @param sessionId   会话ID
+     * @param time        消息时间
+     * @param lastMessage 最后一条消息预览，为空时不更新
+     */
+    public void touch(Long userId, Long sessionId, LocalDateTime time, String lastMessage) {
+        afterCommit(userId, () -> stringRedisTemplate.execute(TOUCH_SCRIPT, keys(userId),
+                String.valueOf(sessionId), String.valueOf(epochMillis(time)), TIME_FORMAT.format(time),
+                lastMessage == null ? "" : lastMessage));
+    }
+
+    private void afterCommit(Long userId, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新会话列表索引失败，清除索引等待重建，userId: {}", userId, e);
+                invalidate(userId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    /**
+     * 清除用户的会话列表索引，下次读取时重建
+     */
+    public void invalidate(Long userId) {
+        try {
+            stringRedisTemplate.delete(keys(userId));
+        } catch (Exception e) {
+            log.warn("清除会话列表索引失败，userId: {}", userId, e);
+        }
+    }
+
+    private static List<String> keys(Long userId) {
+        return List.of(RedisKeys.getSessionIndexKey(userId), RedisKeys.getSessionSummaryKey(userId),
+                RedisKeys.getSessionIndexBuildingKey(userId));
+    }
+
+    private static long score(ChatSessionVO session) {
+        long star = Boolean.TRUE.equals(session.getStar()) ? STAR_OFFSET : 0;
+        return star + (session.getUpdateTime() == null ? 0 : epochMillis(session.getUpdateTime()));
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private String toJson(ChatSessionVO session) {
+        try {
+            return objectMapper.writeValueAsString(session);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("会话序列化失败", e);
+        }
+    }
+}
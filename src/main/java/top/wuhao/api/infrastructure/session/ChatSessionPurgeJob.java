@@ -0,0 +1,154 @@
+package top.wuhao.api.infrastructure.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.mapper.ChatMessageMapper;
+import top.wuhao.api.mapper.ChatSessionMapper;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已删除会话的消息清理任务
+ * <p>
+ * 删除会话时只做逻辑删除，消息由本任务在后台按 (session_id, id) 索引顺序小批量物理删除，每批一个短事务，
+ * 并按 rowsPerSecond 限速。会话行始终保留逻辑删除状态，消息清空后记录 purged_time，
+ * 「deleted = 1 且 purged_time 为空的会话」就是待办队列。按会话ID顺序扫描，游标保存在 Redis 中：
+ * 某个会话清理失败时记录日志并跳过，不阻塞后续会话，一遍扫描结束后游标归零，失败的会话在下一遍重试。
+ * 多节点通过 Redis 锁保证同一时间只有一个节点在跑。
+ * 单轮会因限速休眠最长 MAX_RUN_MILLIS，依赖 spring.task.scheduling.pool.size 大于 1，不阻塞其他定时任务。
+ *
+ * @author wang
+ */
+@Slf4j
+@Component
+public class ChatSessionPurgeJob {
+
+    private static final long LOCK_SECONDS = 60;
+
+    /**
+     * 单轮最长运行时间，留出余量保证在锁过期前结束
+     */
+    private static final long MAX_RUN_MILLIS = LOCK_SECONDS * 1000 / 2;
+
+    private final ChatSessionMapper chatSessionMapper;
+    private final ChatMessageMapper chatMessageMapper;
+    private final RedisCache redisCache;
+    private final ChatSessionProperties properties;
+    private final Counter messageCounter;
+    private final Counter sessionCounter;
+    private final Counter failureCounter;
+    private final Timer chunkTimer;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public ChatSessionPurgeJob(ChatSessionMapper chatSessionMapper, ChatMessageMapper chatMessageMapper,
+                               RedisCache redisCache, ChatSessionProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.chatSessionMapper = chatSessionMapper;
+        this.chatMessageMapper = chatMessageMapper;
+        this.redisCache = redisCache;
+        this.properties = properties;
+        this.messageCounter = Counter.builder("chat.session.purge.messages")
+                .description("已物理删除的会话消息数")
+                .register(meterRegistry);
+        this.sessionCounter = Counter.builder("chat.session.purge.sessions")
+                .description("已清理完成的会话数")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("chat.session.purge.failures")
+                .description("清理失败被跳过的会话数")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("chat.session.purge.chunk")
+                .description("单批消息删除耗时")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.session.purge.interval-millis:5000}")
+    public void run() {
+        ChatSessionProperties.Purge purge = properties.getPurge();
+        if (!purge.isEnabled()) {
+            return;
+        }
+        String lockKey = RedisKeys.getSessionPurgeLockKey();
+        if (!redisCache.setIfAbsent(lockKey, instanceId, LOCK_SECONDS, TimeUnit.SECONDS)) {
+            return;
+        }
+        try {
+            long deadline = System.currentTimeMillis() + MAX_RUN_MILLIS;
+            String cursorKey = RedisKeys.getSessionPurgeCursorKey();
+            long cursor = readCursor();
+            List<Long> sessionIds = chatSessionMapper.selectDeletedSessionIds(cursor, purge.getSessionsPerRun());
+            if (sessionIds.isEmpty()) {
+                if (cursor > 0) {
+                    // 一遍扫描结束，从头开始，之前失败跳过的会话重新尝试
+                    redisCache.set(cursorKey, 0L);
+                }
+                return;
+            }
+            for (Long sessionId : sessionIds) {
+                try {
+                    if (!purgeSession(sessionId, purge, deadline)) {
+                        // 时间片用完，剩余部分下一轮继续
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failureCounter.increment();
+                    log.warn("清理已删除会话失败，跳过，下一遍扫描重试，sessionId: {}", sessionId, e);
+                }
+                redisCache.set(cursorKey, sessionId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("清理已删除会话失败，下次继续", e);
+        } finally {
+            // 只释放自己持有的锁
+            redisCache.compareAndDelete(lockKey, instanceId);
+        }
+    }
+
+    private long readCursor() {
+        Object cursor = redisCache.get(RedisKeys.getSessionPurgeCursorKey());
+        return cursor instanceof Number number ? number.longValue() : 0L;
+    }
+
+    /**
+     * 分批删除会话消息，全部删除后标记会话已清理并删除摘要缓存
+     *
+     * @return 会话是否已清理完成
+     */
+    private boolean purgeSession(Long sessionId, ChatSessionProperties.Purge purge, long deadline)
+            throws InterruptedException {
+        int chunkSize = Math.max(1, purge.getChunkSize());
+        long minChunkMillis = purge.getRowsPerSecond() > 0 ? chunkSize * 1000L / purge.getRowsPerSecond() : 0;
+        while (true) {
+            long start = System.currentTimeMillis();
+            int deleted = chunkTimer.record(() -> chatMessageMapper.purgeBySessionId(sessionId, chunkSize));
+            messageCounter.increment(deleted);
+            if (deleted < chunkSize) {
+                break;
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            if (elapsed < minChunkMillis) {
+                Thread.sleep(minChunkMillis - elapsed);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+        }
+        chatSessionMapper.markSessionPurged(sessionId);
+        redisCache.delete(RedisKeys.getChatSummaryKey(sessionId));
+        sessionCounter.increment();
+        log.debug("已删除会话清理完成，sessionId: {}", sessionId);
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package top.wuhao.api.infrastructure.session;
+
+/**
+ * 会话最后一条消息预览
+ *
+ * @author wang
+ */
+public final class SessionPreview {
+
+    private SessionPreview() {
+    }
+
+    /**
+     * 合并空白并截断到指定长度
+     *
+     * @param content   消息内容
+     * @param maxLength 最大长度
+     * @return 预览文本
+     */
+    public static String of(String content, int maxLength) {
+        if (content == null) {
+            return "";
+        }
+        String preview = content.trim().replaceAll("\\s+", " ");
+        if (preview.length() <= maxLength) {
+            return preview;
+        }
+        int end = maxLength;
+        // 避免截断在代理对中间
+        if (Character.isHighSurrogate(preview.charAt(end - 1))) {
+            end--;
+        }
+        return preview.substring(0, end);
+    }
+}
@@ -13,4 +13,13 @@ public interface SmsProvider {
      * @return 是否发送成功
      */
     boolean sendSms(String mobile);
+
+    /**
+     * 校验并核销短信验证码，校验通过后验证码立即失效
+     *
+     * @param mobile 手机号
+     * @param code   验证码
+     * @return 是否校验通过
+     */
+    boolean verifyCode(String mobile, String code);
 }
@@ -53,4 +53,10 @@ public class RongLianSmsServiceImpl implements SmsProvider {
 
         return true;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean verifyCode(String mobile, String code) {
+        // 比较和删除在一个脚本中完成，同一验证码只能使用一次
+        return code != null && redisCache.compareAndDelete(RedisKeys.getSmsCodeKey(mobile), code);
+    }
+}
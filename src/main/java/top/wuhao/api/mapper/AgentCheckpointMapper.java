@@ -0,0 +1,32 @@
+package top.wuhao.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+import top.wuhao.api.entity.AgentCheckpoint;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+ * <p>
+ * 智能体检查点表 Mapper 接口
+ * </p>
+ *
+ * @author wang
+ */
+public interface AgentCheckpointMapper extends BaseMapper<AgentCheckpoint> {
+
+    /**
+     * 插入或更新检查点
+     *
+     * @param checkpoint 检查点
+     * @return 影响行数
+     */
+    int upsert(@Param("checkpoint") AgentCheckpoint checkpoint);
+
+    /**
+     * 版本未变时删除检查点，避免删掉其他节点刚写入的更新数据
+     *
+     * @param threadId 会话线程ID
+     * @param version  读取时的版本
+     * @return 影响行数
+     */
+    int deleteByVersion(@Param("threadId") String threadId, @Param("version") long version);
+}
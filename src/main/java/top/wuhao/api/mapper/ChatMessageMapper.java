@@ -1,8 +1,11 @@
 package top.wuhao.api.mapper;
 
+import org.apache.ibatis.annotations.Param;
 import top.wuhao.api.entity.ChatMessage;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import java.util.List;
+
 /**
  * <p>
  * 聊天消息表 Mapper 接口
@@ -13,4 +16,38 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
 
+    /**
+     * 按消息ID游标分页查询会话消息
+     * <p>
+     * 传 afterId 时按ID正序返回更新的消息，否则按ID倒序返回 beforeId 之前（未传则为最新）的消息
+     *
+     * @param sessionId    会话ID
+     * @param beforeId     向前翻页游标
+     * @param afterId      向后翻页游标
+     * @param limit        查询条数
+     * @param withThinking 是否查询思考链内容
+     * @return 消息列表
+     */
+    List<ChatMessage> selectPageByCursor(@Param("sessionId") Long sessionId,
+                                         @Param("beforeId") Long beforeId,
+                                         @Param("afterId") Long afterId,
+                                         @Param("limit") int limit,
+                                         @Param("withThinking") boolean withThinking);
+
+    /**
+     * 批量插入消息（消息ID已预先分配，重复ID忽略，便于日志回放）
+     *
+     * @param messages 消息列表
+     * @return 影响行数
+     */
+    int insertBatch(@Param("messages") List<ChatMessage> messages);
+
+    /**
+     * 按ID顺序物理删除会话的一批消息（不受逻辑删除过滤）
+     *
+     * @param sessionId 会话ID
+     * @param limit     删除条数上限
+     * @return 删除行数
+     */
+    int purgeBySessionId(@Param("sessionId") Long sessionId, @Param("limit") int limit);
 }
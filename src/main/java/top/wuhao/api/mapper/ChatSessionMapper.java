@@ -1,8 +1,13 @@
 package top.wuhao.api.mapper;
 
+import org.apache.ibatis.annotations.Param;
 import top.wuhao.api.entity.ChatSession;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * <p>
  * 聊天会话表 Mapper 接口
@@ -13,4 +18,58 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface ChatSessionMapper extends BaseMapper<ChatSession> {
 
+    /**
+     * 更新会话的最后一条消息和更新时间，只接受不早于当前记录的消息
+     *
+     * @param sessionId       会话ID
+     * @param lastMessage     最后一条消息预览
+     * @param lastMessageTime 最后一条消息时间
+     * @return 影响行数
+     */
+    int updateLastMessage(@Param("sessionId") Long sessionId,
+                          @Param("lastMessage") String lastMessage,
+                          @Param("lastMessageTime") LocalDateTime lastMessageTime);
+
+    /**
+     * 查询待回填最后一条消息的会话（按ID游标）
+     *
+     * @param afterId 游标，返回ID大于该值的会话
+     * @param limit   查询条数
+     * @return 会话ID和用户ID
+     */
+    List<ChatSession> selectBackfillCandidates(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 用会话最新一条消息回填最后一条消息字段，不修改更新时间
+     *
+     * @param sessionId     会话ID
+     * @param previewLength 预览长度
+     * @return 影响行数
+     */
+    int backfillLastMessage(@Param("sessionId") Long sessionId, @Param("previewLength") int previewLength);
+
+    /**
+     * 查询已标记删除、消息尚未清理的会话ID（不受逻辑删除过滤）
+     *
+     * @param afterId 游标，返回ID大于该值的会话
+     * @param limit   查询条数
+     * @return 会话ID
+     */
+    List<Long> selectDeletedSessionIds(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 记录已删除会话的消息清理完成，会话行仍保持逻辑删除
+     *
+     * @param sessionId 会话ID
+     * @return 影响行数
+     */
+    int markSessionPurged(@Param("sessionId") Long sessionId);
+
+    /**
+     * 查询仍然有效的会话ID并加共享锁，锁持有期间会话不能被删除
+     *
+     * @param sessionIds 会话ID
+     * @return 未删除的会话ID
+     */
+    List<Long> selectLiveSessionIdsForShare(@Param("sessionIds") Collection<Long> sessionIds);
 }
@@ -1,18 +1,23 @@
 package top.wuhao.api.service;
 
-import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.dashscope.chat.MessageFormat;
 import com.alibaba.cloud.ai.dashscope.common.DashScopeApiConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.content.Media;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeTypeUtils;
 import reactor.core.publisher.Flux;
+import top.wuhao.api.common.cache.AiResponseCache;
+import top.wuhao.api.common.cache.RequestCoalescer;
+import top.wuhao.api.common.cache.SemanticAnswerCache;
+import top.wuhao.api.config.ChatOptionsFactory;
+import top.wuhao.api.infrastructure.context.ChatContextBuilder;
 import top.wuhao.starter.common.exception.BusinessException;
 
 import java.net.URI;
@@ -29,7 +34,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AIQnaService {
     private final ChatClient dashScopeChatClient;
-    private final DashScopeChatOptions dashScopeChatOptions;
+    private final ChatOptionsFactory chatOptionsFactory;
+    private final AiResponseCache aiResponseCache;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final RequestCoalescer requestCoalescer;
+    private final ChatContextBuilder chatContextBuilder;
 
     private static final String DEFAULT_QUESTION = """
             你是一个专业的编程导师，请回答学生问题。
@@ -38,43 +47,85 @@ public class AIQnaService {
             请给出详细且易懂的解答，并举例说明。
             """;
 
+    private static final String SESSION_SYSTEM_PROMPT = """
+            你是一个专业的编程导师，请结合之前的对话回答学生问题，给出详细且易懂的解答，并举例说明。
+            """;
+
     /**
      * 普通问答
      */
     public String answerQuestionSimple(String question) {
+        return answerQuestionSimple(question, null);
+    }
+
+    /**
+     * 普通问答（指定模型，为空时使用默认模型）
+     */
+    public String answerQuestionSimple(String question, String model) {
         String prompt = DEFAULT_QUESTION.formatted(question);
-        return dashScopeChatClient.prompt(prompt).call().content();
+        DashScopeChatOptions options = chatOptionsFactory.forModel(model);
+        // 精确缓存 -> 语义缓存 -> 模型
+        return aiResponseCache.get("qna", prompt, options,
+                () -> semanticAnswerCache.get("qna:" + options.getModel(), question,
+                        () -> dashScopeChatClient.prompt(new Prompt(prompt, options)).call().content()));
     }
 
     /**
      * 流式问答
      */
     public Flux<String> answerQuestionStream(String question) {
+        return answerQuestionStream(question, null);
+    }
+
+    /**
+     * 流式问答（指定模型，为空时使用默认模型）
+     */
+    public Flux<String> answerQuestionStream(String question, String model) {
         String prompt = DEFAULT_QUESTION.formatted(question);
-        return dashScopeChatClient.prompt(prompt).stream().content();
+        DashScopeChatOptions options = chatOptionsFactory.forModel(model);
+        // 相同问题的并发流式请求共享同一次上游调用
+        return requestCoalescer.stream("qna-stream:" + AiResponseCache.cacheKey(prompt, options),
+                () -> dashScopeChatClient.prompt(new Prompt(prompt, options)).stream().content());
     }
 
     /**
      * 联网搜索
      */
     public Flux<String> webSearch(String question) {
-        var searchOptions = DashScopeApi.SearchOptions.builder()
-                .forcedSearch(true)
-                .enableSource(true)
-                .searchStrategy("pro")
-                .enableCitation(true)
-                .citationFormat("[<number>]")
-                .build();
-        dashScopeChatOptions.setSearchOptions(searchOptions);
+        return webSearch(question, null);
+    }
+
+    /**
+     * 联网搜索（指定模型，为空时使用默认模型）
+     */
+    public Flux<String> webSearch(String question, String model) {
         String prompt = DEFAULT_QUESTION.formatted(question);
-        return dashScopeChatClient.prompt(prompt).stream().content();
+        DashScopeChatOptions options = chatOptionsFactory.forWebSearch(model);
+        return requestCoalescer.stream("web-search:" + AiResponseCache.cacheKey(prompt, options),
+                () -> dashScopeChatClient.prompt(new Prompt(prompt, options)).stream().content());
+    }
+
+    /**
+     * 会话内多轮问答：按 token 预算携带会话历史，更早的内容以摘要形式提供
+     */
+    public String answerInSession(Long sessionId, Long userId, String question, String model) {
+        List<Message> messages = chatContextBuilder.build(sessionId, userId, SESSION_SYSTEM_PROMPT, question);
+        return dashScopeChatClient.prompt(new Prompt(messages, chatOptionsFactory.forModel(model))).call().content();
+    }
+
+    /**
+     * 会话内多轮问答（流式）
+     */
+    public Flux<String> answerInSessionStream(Long sessionId, Long userId, String question, String model) {
+        List<Message> messages = chatContextBuilder.build(sessionId, userId, SESSION_SYSTEM_PROMPT, question);
+        return dashScopeChatClient.prompt(new Prompt(messages, chatOptionsFactory.forModel(model))).stream().content();
     }
 
     /**
-     * 切换模型
+     * 切换默认模型，只影响之后发起的请求
      */
     public void changeModel(String model) {
-        dashScopeChatOptions.setModel(model);
+        chatOptionsFactory.switchDefaultModel(model);
     }
 
     public Flux<String> analyzeImageByUrl(String prompt, String imageUrl) {
@@ -89,12 +140,10 @@ public class AIQnaService {
         var message = UserMessage.builder().text(prompt).media(mediaList).build();
         // 设置消息格式为图片
         message.getMetadata().put(DashScopeApiConstants.MESSAGE_FORMAT, MessageFormat.IMAGE);
-        // 启用多模态模型
-        dashScopeChatOptions.setModel("qwen-vl-max-latest");
-        dashScopeChatOptions.setMultiModel(true);
-        dashScopeChatOptions.setVlHighResolutionImages(true);
-        Prompt chatPrompt = new Prompt(message, dashScopeChatOptions);
+        // 多模态参数只作用于本次请求
+        DashScopeChatOptions visionOptions = chatOptionsFactory.forVision();
+        Prompt chatPrompt = new Prompt(message, visionOptions);
         // 调用模型进行图片分析
         return dashScopeChatClient.prompt(chatPrompt).stream().content();
     }
-}
\ No newline at end of file
+}
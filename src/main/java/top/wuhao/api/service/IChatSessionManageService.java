@@ -1,8 +1,9 @@
 package top.wuhao.api.service;
 
+import top.wuhao.api.entity.vo.ChatMessagePageVO;
 import top.wuhao.api.entity.vo.ChatSessionVO;
-import top.wuhao.api.entity.vo.ChatMessageVO;
 import top.wuhao.api.entity.dto.CreateSessionDTO;
+import top.wuhao.api.entity.dto.MessagePageQuery;
 import top.wuhao.api.entity.dto.UpdateSessionDTO;
 
 import java.util.List;
@@ -43,22 +44,23 @@ public interface IChatSessionManageService {
     ChatSessionVO updateSessionTitleByContent(Long sessionId, Long userId);
     
     /**
-     * 获取会话详细（包含所有消息）
+     * 获取会话详细（包含最新一页消息）
      *
      * @param sessionId 会话ID
      * @param userId 用户ID
-     * @return 会话详细和消息列表
+     * @return 会话详细和最新一页消息
      */
     ChatSessionVO getSessionDetail(Long sessionId, Long userId);
     
     /**
-     * 获取会话的所有消息
+     * 游标分页获取会话消息
      *
      * @param sessionId 会话ID
      * @param userId 用户ID
-     * @return 消息列表
+     * @param query 分页查询条件
+     * @return 消息分页结果
      */
-    List<ChatMessageVO> getSessionMessages(Long sessionId, Long userId);
+    ChatMessagePageVO getSessionMessages(Long sessionId, Long userId, MessagePageQuery query);
     
     /**
      * 删除会话（级联删除所有消息）
@@ -1,9 +1,12 @@
 package top.wuhao.api.service;
 
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
+import top.wuhao.api.common.cache.AiResponseCache;
+import top.wuhao.api.config.ChatOptionsFactory;
 
 /**
  * 知识总结服务
@@ -15,12 +18,13 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class KnowledgeSummaryService {
     private final ChatClient.Builder chatClientBuilder;
+    private final ChatOptionsFactory chatOptionsFactory;
+    private final AiResponseCache aiResponseCache;
 
     /**
      * 总结课程要点
      */
     public String summarizeCourse(String courseContent) {
-        ChatClient chatClient = chatClientBuilder.build();
         String prompt = """
                 请总结以下课程内容的核心要点。
                 课程内容：
@@ -31,10 +35,8 @@ public class KnowledgeSummaryService {
                 3. 标注重要程度（⭐⭐⭐）
                 4. 给出学习建议
                 """.formatted(courseContent);
-        String summary = chatClient.prompt()
-                .user(prompt)
-                .call()
-                .content();
+        DashScopeChatOptions options = chatOptionsFactory.defaults();
+        String summary = aiResponseCache.get("summary", prompt, options, () -> call(prompt, options));
         log.info("课程总结：{}", summary);
         return summary;
     }
@@ -43,7 +45,6 @@ public class KnowledgeSummaryService {
      * 生成思维导图结构
      */
     public String generateMindMap(String courseContent) {
-        ChatClient chatClient = chatClientBuilder.build();
         String prompt = """
                 请将以下课程内容转换为思维导图结构（Markdown 格式）。
                 课程内容：
@@ -53,11 +54,21 @@ public class KnowledgeSummaryService {
                 2. 主题明确，层次清晰
                 3. 包含关键知识点和子知识点
                 """.formatted(courseContent);
-        String mindMap = chatClient.prompt()
+        DashScopeChatOptions options = chatOptionsFactory.defaults();
+        String mindMap = aiResponseCache.get("mindmap", prompt, options, () -> call(prompt, options));
+        log.info("思维导图：{}", mindMap);
+        return mindMap;
+    }
+
+    /**
+     * 使用指定参数调用模型
+     */
+    private String call(String prompt, DashScopeChatOptions options) {
+        return chatClientBuilder.build()
+                .prompt()
                 .user(prompt)
+                .options(options)
                 .call()
                 .content();
-        log.info("思维导图：{}", mindMap);
-        return mindMap;
     }
 }
@@ -2,14 +2,19 @@ package top.wuhao.api.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.convert.ChatMessageConvert;
 import top.wuhao.api.entity.ChatMessage;
 import top.wuhao.api.entity.vo.ChatMessageVO;
 import top.wuhao.api.entity.dto.SendMessageDTO;
 import top.wuhao.api.entity.dto.SaveMessageDTO;
+import top.wuhao.api.infrastructure.message.ChatMessageWriteBehind;
+import top.wuhao.api.infrastructure.session.ChatSessionIndex;
+import top.wuhao.api.infrastructure.session.SessionPreview;
 import top.wuhao.api.mapper.ChatMessageMapper;
+import top.wuhao.api.mapper.ChatSessionMapper;
 import top.wuhao.api.service.IChatMessageManageService;
 
 import java.time.LocalDateTime;
@@ -23,6 +28,11 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class ChatMessageManageServiceImpl extends ServiceImpl<ChatMessageMapper, ChatMessage> implements IChatMessageManageService {
     
+    private final ChatMessageWriteBehind chatMessageWriteBehind;
+    private final ChatSessionIndex chatSessionIndex;
+    private final ChatSessionMapper chatSessionMapper;
+    private final ChatSessionProperties chatSessionProperties;
+    
     @Override
     @Transactional
     public ChatMessageVO saveUserMessage(SendMessageDTO sendMessageDTO, Long userId) {
@@ -40,7 +50,7 @@ public class ChatMessageManageServiceImpl extends ServiceImpl<ChatMessageMapper,
         userMessage.setUpdateTime(LocalDateTime.now());
         
         // 保存用户消息
-        this.save(userMessage);
+        persist(userMessage);
         
         // 返回VO对象
         return convertToVO(userMessage);
@@ -65,18 +75,32 @@ public class ChatMessageManageServiceImpl extends ServiceImpl<ChatMessageMapper,
         assistantMessage.setUpdateTime(LocalDateTime.now());
         
         // 保存AI回答消息
-        this.save(assistantMessage);
+        persist(assistantMessage);
         
         // 返回VO对象
         return convertToVO(assistantMessage);
     }
     
+    /**
+     * 保存消息并更新会话的最后一条消息：开启异步批量写入时入队后立即返回（会话字段随批次一起更新），
+     * 否则在当前事务中同步插入和更新
+     */
+    private void persist(ChatMessage chatMessage) {
+        String preview = SessionPreview.of(chatMessage.getContent(), chatSessionProperties.getPreviewLength());
+        if (chatMessageWriteBehind.isEnabled()) {
+            chatMessageWriteBehind.submit(chatMessage);
+        } else {
+            this.save(chatMessage);
+            chatSessionMapper.updateLastMessage(chatMessage.getSessionId(), preview, chatMessage.getCreateTime());
+        }
+        // 会话有新消息，调整其在会话列表中的位置
+        chatSessionIndex.touch(chatMessage.getUserId(), chatMessage.getSessionId(), chatMessage.getCreateTime(), preview);
+    }
+    
     /**
      * 转换为VO对象
      */
     private ChatMessageVO convertToVO(ChatMessage chatMessage) {
-        ChatMessageVO vo = new ChatMessageVO();
-        BeanUtils.copyProperties(chatMessage, vo);
-        return vo;
+        return ChatMessageConvert.INSTANCE.convert(chatMessage);
     }
 }
\ No newline at end of file
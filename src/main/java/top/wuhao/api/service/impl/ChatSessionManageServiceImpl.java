@@ -3,22 +3,28 @@ package top.wuhao.api.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import top.wuhao.api.config.ChatMessageProperties;
+import top.wuhao.api.convert.ChatMessageConvert;
+import top.wuhao.api.convert.ChatSessionConvert;
 import top.wuhao.api.entity.ChatSession;
 import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.entity.vo.ChatMessagePageVO;
 import top.wuhao.api.entity.vo.ChatSessionVO;
 import top.wuhao.api.entity.vo.ChatMessageVO;
 import top.wuhao.api.entity.dto.CreateSessionDTO;
+import top.wuhao.api.entity.dto.MessagePageQuery;
 import top.wuhao.api.entity.dto.UpdateSessionDTO;
+import top.wuhao.api.infrastructure.message.ChatMessageWriteBehind;
+import top.wuhao.api.infrastructure.session.ChatSessionIndex;
 import top.wuhao.api.mapper.ChatSessionMapper;
 import top.wuhao.api.mapper.ChatMessageMapper;
 import top.wuhao.api.service.IChatSessionManageService;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 聊天会话管理服务实现
@@ -30,6 +36,9 @@ import java.util.stream.Collectors;
 public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper, ChatSession> implements IChatSessionManageService {
     
     private final ChatMessageMapper chatMessageMapper;
+    private final ChatMessageProperties chatMessageProperties;
+    private final ChatMessageWriteBehind chatMessageWriteBehind;
+    private final ChatSessionIndex chatSessionIndex;
     
     @Override
     @Transactional
@@ -45,7 +54,9 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
         
         this.save(chatSession);
         
-        return convertToVO(chatSession);
+        ChatSessionVO sessionVO = convertToVO(chatSession);
+        chatSessionIndex.upsert(sessionVO);
+        return sessionVO;
     }
     
     @Override
@@ -61,7 +72,9 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
         
         this.updateById(chatSession);
         
-        return convertToVO(chatSession);
+        ChatSessionVO sessionVO = convertToVO(chatSession);
+        chatSessionIndex.upsert(sessionVO);
+        return sessionVO;
     }
     
     @Override
@@ -91,6 +104,7 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
             chatSession.setUpdateTime(LocalDateTime.now());
             
             this.updateById(chatSession);
+            chatSessionIndex.upsert(convertToVO(chatSession));
         }
         
         return convertToVO(chatSession);
@@ -132,39 +146,59 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
         
         ChatSessionVO sessionVO = convertToVO(chatSession);
         
-        // 获取会话的所有消息
-        LambdaQueryWrapper<ChatMessage> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ChatMessage::getSessionId, sessionId)
-                .orderByAsc(ChatMessage::getCreateTime);
-        
-        List<ChatMessage> messages = chatMessageMapper.selectList(queryWrapper);
-        
-        List<ChatMessageVO> messageVOs = messages.stream()
-                .map(this::convertMessageToVO)
-                .collect(Collectors.toList());
-        
-        sessionVO.setMessages(messageVOs);
+        // 只返回最新一页消息，更早的消息通过分页接口加载
+        ChatMessagePageVO page = queryMessagePage(sessionId, new MessagePageQuery());
+        sessionVO.setMessages(page.getMessages());
+        sessionVO.setHasMoreMessages(page.getHasMore());
         
         return sessionVO;
     }
     
     @Override
-    public List<ChatMessageVO> getSessionMessages(Long sessionId, Long userId) {
+    public ChatMessagePageVO getSessionMessages(Long sessionId, Long userId, MessagePageQuery query) {
         // 验证会话是否属于当前用户
         ChatSession chatSession = this.getById(sessionId);
         if (chatSession == null || !chatSession.getUserId().equals(userId)) {
             throw new RuntimeException("会话不存在或无权限访问");
         }
         
-        LambdaQueryWrapper<ChatMessage> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ChatMessage::getSessionId, sessionId)
-                .orderByAsc(ChatMessage::getCreateTime);
+        return queryMessagePage(sessionId, query);
+    }
+    
+    /**
+     * 按 (session_id, id) 游标查询一页消息，多取一条判断是否还有更多
+     */
+    private ChatMessagePageVO queryMessagePage(Long sessionId, MessagePageQuery query) {
+        int size = query.getSize() == null
+                ? chatMessageProperties.getPageSize()
+                : Math.min(Math.max(query.getSize(), 1), chatMessageProperties.getMaxPageSize());
+        boolean forward = query.getAfter() != null;
+        
+        boolean withThinking = Boolean.TRUE.equals(query.getWithThinking());
+        List<ChatMessage> rows = chatMessageMapper.selectPageByCursor(sessionId, query.getBefore(), query.getAfter(),
+                size + 1, withThinking);
+        // 合并尚未落库的消息，保证读到刚写入的内容
+        rows = chatMessageWriteBehind.mergePending(sessionId, rows, query.getAfter(), query.getBefore(), forward, size + 1);
+        boolean hasMore = rows.size() > size;
         
-        List<ChatMessage> messages = chatMessageMapper.selectList(queryWrapper);
+        List<ChatMessageVO> messages = ChatMessageConvert.INSTANCE.convertList(
+                hasMore ? rows.subList(0, size) : rows);
+        if (!withThinking) {
+            messages.forEach(vo -> vo.setThinkingContent(null));
+        }
+        // 向前翻页和最新一页按ID倒序查出，统一转为时间正序
+        if (!forward) {
+            Collections.reverse(messages);
+        }
         
-        return messages.stream()
-                .map(this::convertMessageToVO)
-                .collect(Collectors.toList());
+        ChatMessagePageVO page = new ChatMessagePageVO();
+        page.setMessages(messages);
+        page.setHasMore(hasMore);
+        if (!messages.isEmpty()) {
+            page.setFirstId(messages.get(0).getId());
+            page.setLastId(messages.get(messages.size() - 1).getId());
+        }
+        return page;
     }
     
     @Override
@@ -175,17 +209,24 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
             throw new RuntimeException("会话不存在或无权限访问");
         }
         
-        // 删除会话相关的所有消息
-        LambdaQueryWrapper<ChatMessage> messageQueryWrapper = new LambdaQueryWrapper<>();
-        messageQueryWrapper.eq(ChatMessage::getSessionId, sessionId);
-        chatMessageMapper.delete(messageQueryWrapper);
-        
-        // 删除会话
-        return this.removeById(sessionId);
+        // 只逻辑删除会话，消息由 ChatSessionPurgeJob 在后台分批清理（需显式开启）
+        boolean removed = this.removeById(sessionId);
+        chatSessionIndex.remove(userId, sessionId);
+        // 尚未落库的消息不再返回，落库时也会因会话已删除被丢弃
+        chatMessageWriteBehind.discardSession(sessionId);
+        return removed;
     }
     
     @Override
     public List<ChatSessionVO> getUserSessionList(Long userId) {
+        // 优先读取 Redis 索引，未命中时查库并重建
+        List<ChatSessionVO> cached = chatSessionIndex.list(userId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        // 先登记重建令牌再查库，查库期间有写入提交时放弃写回，避免旧快照覆盖索引
+        String rebuildToken = chatSessionIndex.beginRebuild(userId);
         LambdaQueryWrapper<ChatSession> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(ChatSession::getUserId, userId)
                 .orderByDesc(ChatSession::getStar)
@@ -193,27 +234,16 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
         
         List<ChatSession> sessions = this.list(queryWrapper);
         
-        return sessions.stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList());
+        List<ChatSessionVO> sessionVOs = ChatSessionConvert.INSTANCE.convertList(sessions);
+        chatSessionIndex.rebuild(userId, rebuildToken, sessionVOs);
+        return sessionVOs;
     }
     
     /**
      * 转换为VO对象
      */
     private ChatSessionVO convertToVO(ChatSession chatSession) {
-        ChatSessionVO vo = new ChatSessionVO();
-        BeanUtils.copyProperties(chatSession, vo);
-        return vo;
-    }
-    
-    /**
-     * 转换消息为VO对象
-     */
-    private ChatMessageVO convertMessageToVO(ChatMessage chatMessage) {
-        ChatMessageVO vo = new ChatMessageVO();
-        BeanUtils.copyProperties(chatMessage, vo);
-        return vo;
+        return ChatSessionConvert.INSTANCE.convert(chatSession);
     }
 
     @Override
@@ -227,6 +257,8 @@ public class ChatSessionManageServiceImpl extends ServiceImpl<ChatSessionMapper,
         chatSession.setStar(Boolean.TRUE.equals(star));
         chatSession.setUpdateTime(LocalDateTime.now());
         this.updateById(chatSession);
-        return convertToVO(chatSession);
+        ChatSessionVO sessionVO = convertToVO(chatSession);
+        chatSessionIndex.upsert(sessionVO);
+        return sessionVO;
     }
 }
\ No newline at end of file
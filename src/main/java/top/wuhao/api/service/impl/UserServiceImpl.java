@@ -4,15 +4,21 @@ import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import top.wuhao.api.common.cache.RedisCache;
 import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.cache.TieredCache;
+import top.wuhao.api.common.cache.TokenNearCache;
 import top.wuhao.api.common.exception.ServerException;
+import top.wuhao.api.common.filter.TokenRenewer;
+import top.wuhao.api.common.filter.TokenRevocationList;
+import top.wuhao.api.common.utils.JwtClaims;
 import top.wuhao.api.common.utils.JwtUtils;
 import top.wuhao.api.common.utils.SecurityUtils;
+import top.wuhao.api.config.JwtAuthProperties;
+import top.wuhao.api.convert.UserConvert;
 import top.wuhao.api.entity.User;
+import top.wuhao.api.infrastructure.auth.PasswordVerifier;
 import top.wuhao.api.entity.vo.UserInfoVO;
 import top.wuhao.api.mapper.UserMapper;
 import top.wuhao.api.entity.dto.LoginDTO;
@@ -21,6 +27,8 @@ import top.wuhao.api.service.IUserService;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -36,10 +44,20 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IUserService {
 
+    /**
+     * 用户信息缓存时间
+     */
+    private static final Duration USER_INFO_TTL = Duration.ofMinutes(30);
+
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerifier passwordVerifier;
     private final JwtUtils jwtUtils;
     private final RedisCache redisCache;
+    private final TokenNearCache tokenNearCache;
+    private final TieredCache tieredCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final TokenRenewer tokenRenewer;
+    private final JwtAuthProperties jwtAuthProperties;
 
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
@@ -56,19 +74,32 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         if (user == null) {
             throw new ServerException("用户名或密码错误");
         }
-        // 验证密码
-        if (!passwordEncoder.matches(dto.getPassword(), user.getPassword())) {
+        // 验证密码，在独立的校验线程池中执行
+        if (!passwordVerifier.matches(user.getId(), dto.getPassword(), user.getPassword())) {
             throw new ServerException("用户名或密码错误");
         }
         // 检查用户状态
         if (user.getStatus() == 0) {
             throw new ServerException("账号已被禁用");
         }
+        // 密文强度低于当前配置时后台重新加密，仅在密码未被修改时更新
+        passwordVerifier.upgradeIfNeeded(dto.getPassword(), user.getPassword(), encoded ->
+                lambdaUpdate()
+                        .set(User::getPassword, encoded)
+                        .eq(User::getId, user.getId())
+                        .eq(User::getPassword, user.getPassword())
+                        .update());
         // 生成 Token
         String token = jwtUtils.generateToken(user.getId());
-        // 存储 Token 到 Redis
+        // 存储 Token 到 Redis，同时清除续期宽限中的旧 Token，一次往返
         String tokenKey = RedisKeys.getUserTokenKey(user.getId());
-        redisCache.set(tokenKey, token, jwtExpiration / 1000, TimeUnit.SECONDS);
+        String previousTokenKey = RedisKeys.getUserPreviousTokenKey(user.getId());
+        redisCache.pipelined(operations -> {
+            operations.opsForValue().set(tokenKey, token, jwtExpiration / 1000, TimeUnit.SECONDS);
+            operations.delete(previousTokenKey);
+        });
+        // 旧 Token 在所有节点上失效
+        tokenNearCache.invalidate(user.getId());
         return new TokenVO(token, jwtExpiration / 1000);
     }
 
@@ -81,12 +112,22 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         if (StrUtil.isBlank(token)) {
             return;
         }
-        // 从 Token 中获取用户ID
-        Long userId = jwtUtils.getUserIdFromToken(token);
-        if (userId != null) {
-            // 删除 Redis 中的用户 Token
-            String tokenKey = RedisKeys.getUserTokenKey(userId);
-            redisCache.delete(tokenKey);
+        // 解析 Token 获取用户ID
+        JwtClaims claims = jwtUtils.parseToken(token);
+        if (claims != null) {
+            Long userId = claims.userId();
+            if (jwtAuthProperties.getAuthMode() == JwtAuthProperties.AuthMode.REVOCATION_LIST) {
+                // 撤销当前 Token，以及任一节点已为其签发的续期 Token
+                tokenRevocationList.revokeToken(claims);
+                String renewedToken = tokenRenewer.findStatelessRenewal(claims);
+                JwtClaims renewed = renewedToken == null ? null : jwtUtils.parseToken(renewedToken);
+                if (renewed != null) {
+                    tokenRevocationList.revokeToken(renewed);
+                }
+            }
+            // 删除 Redis 中的用户 Token 及续期宽限中的旧 Token
+            redisCache.delete(List.of(RedisKeys.getUserTokenKey(userId), RedisKeys.getUserPreviousTokenKey(userId)));
+            tokenNearCache.invalidate(userId);
             log.info("用户登出成功，userId: {}", userId);
         }
     }
@@ -94,9 +135,13 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     public void logoutByUserId(Long userId) {
         if (userId != null) {
-            // 删除 Redis 中的用户 Token
-            String tokenKey = RedisKeys.getUserTokenKey(userId);
-            redisCache.delete(tokenKey);
+            if (jwtAuthProperties.getAuthMode() == JwtAuthProperties.AuthMode.REVOCATION_LIST) {
+                // 该用户此前签发的所有 Token 失效
+                tokenRevocationList.revokeUser(userId);
+            }
+            // 删除 Redis 中的用户 Token 及续期宽限中的旧 Token
+            redisCache.delete(List.of(RedisKeys.getUserTokenKey(userId), RedisKeys.getUserPreviousTokenKey(userId)));
+            tokenNearCache.invalidate(userId);
             log.info("用户登出成功，userId: {}", userId);
         }
     }
@@ -115,14 +160,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
      */
     @Override
     public UserInfoVO getUserInfoById(Long userId) {
-        User user = this.getById(userId);
-        if (user == null) {
+        UserInfoVO userInfo = tieredCache.get(RedisKeys.getUserInfoCacheKey(userId), () -> {
+            User user = this.getById(userId);
+            // UserInfoVO 不含密码字段
+            return user == null ? null : UserConvert.INSTANCE.convert(user);
+        }, USER_INFO_TTL);
+        if (userInfo == null) {
             throw new ServerException("用户不存在");
         }
-        
-        UserInfoVO userInfoVO = new UserInfoVO();
-        BeanUtils.copyProperties(user, userInfoVO);
-        // 不返回密码
-        return userInfoVO;
+        return userInfo;
     }
 }
@@ -0,0 +1,12 @@
+-- 智能体检查点表（Redis 不可用时的兜底存储）
+CREATE TABLE IF NOT EXISTS `agent_checkpoint`
+(
+    `thread_id`        VARCHAR(64) NOT NULL COMMENT '会话线程ID',
+    `payload`          LONGBLOB    NOT NULL COMMENT '检查点数据（最新为全量，其余为逆向增量）',
+    `checkpoint_count` INT         NOT NULL DEFAULT 0 COMMENT '检查点数量',
+    `version`          BIGINT      NOT NULL DEFAULT 0 COMMENT '数据版本（毫秒时间，与 Redis 版本号可比较）',
+    `update_time`      DATETIME    NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (`thread_id`),
+    KEY `idx_update_time` (`update_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='智能体检查点表';
@@ -0,0 +1,3 @@
+-- 会话消息游标分页索引：WHERE session_id = ? AND id < ? ORDER BY id DESC LIMIT ?
+ALTER TABLE `chat_message`
+    ADD INDEX `idx_session_id_id` (`session_id`, `id`);
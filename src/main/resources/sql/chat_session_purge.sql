@@ -0,0 +1,4 @@
+-- 已删除会话的消息清理：会话行保持逻辑删除，清理完成后记录时间，未清理的会话按 ID 顺序扫描
+ALTER TABLE `chat_session`
+    ADD COLUMN `purged_time` DATETIME NULL DEFAULT NULL COMMENT '消息清理完成时间',
+    ADD INDEX `idx_deleted_purged_time_id` (`deleted`, `purged_time`, `id`);
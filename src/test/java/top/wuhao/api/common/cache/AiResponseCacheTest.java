@@ -0,0 +1,118 @@
+package top.wuhao.api.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI 回答缓存的两级命中与按接口过期：L1 过期后回落到 L2，L2 也未命中才调用模型
+ *
+ * @author wang
+ */
+class AiResponseCacheTest {
+
+    private static final String PROMPT = "什么是 Redis？";
+    private static final Duration SHORT_TTL = Duration.ofMillis(200);
+
+    private RedisCache redisCache;
+    private AiResponseCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        redisCache = mock(RedisCache.class);
+        AiCacheProperties properties = new AiCacheProperties();
+        properties.getTtl().put("qna", SHORT_TTL);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cache = new AiResponseCache(redisCache, properties, meterRegistry, new RequestCoalescer(meterRegistry));
+    }
+
+    @Test
+    void missLoadsOnceAndFillsBothLevels() {
+        assertThat(cache.get("summary", PROMPT, null, loader("回答"))).isEqualTo("回答");
+        assertThat(cache.get("summary", PROMPT, null, loader("回答"))).isEqualTo("回答");
+
+        assertThat(loads).hasValue(1);
+        // 第二次命中 L1，不再访问 Redis
+        verify(redisCache, times(1)).get(anyString(), eq(String.class));
+        verify(redisCache).set(RedisKeys.getAiAnswerKey("summary", AiResponseCache.cacheKey(PROMPT, null)),
+                "回答", Duration.ofHours(1).toSeconds(), TimeUnit.SECONDS);
+    }
+
+    @Test
+    void l2HitFillsL1WithoutCallingModel() {
+        when(redisCache.get(anyString(), eq(String.class))).thenReturn("Redis 中的回答");
+
+        assertThat(cache.get("summary", PROMPT, null, loader("新回答"))).isEqualTo("Redis 中的回答");
+        assertThat(cache.get("summary", PROMPT, null, loader("新回答"))).isEqualTo("Redis 中的回答");
+
+        assertThat(loads).hasValue(0);
+        verify(redisCache, times(1)).get(anyString(), eq(String.class));
+    }
+
+    @Test
+    void expiredL1FallsBackToL2() throws InterruptedException {
+        when(redisCache.get(anyString(), eq(String.class))).thenReturn(null, "Redis 中的回答");
+        cache.get("qna", PROMPT, null, loader("回答"));
+
+        TimeUnit.MILLISECONDS.sleep(SHORT_TTL.toMillis() * 2);
+
+        assertThat(cache.get("qna", PROMPT, null, loader("回答"))).isEqualTo("Redis 中的回答");
+        assertThat(loads).hasValue(1);
+        verify(redisCache, times(2)).get(anyString(), eq(String.class));
+    }
+
+    @Test
+    void expiryFollowsEndpointTtl() throws InterruptedException {
+        cache.get("qna", PROMPT, null, loader("回答"));
+        cache.get("summary", PROMPT, null, loader("回答"));
+
+        TimeUnit.MILLISECONDS.sleep(SHORT_TTL.toMillis() * 2);
+        cache.get("qna", PROMPT, null, loader("回答"));
+        cache.get("summary", PROMPT, null, loader("回答"));
+
+        // qna 的 L1 已过期，重新查 Redis（未命中则再调用模型）；summary 仍命中 L1
+        verify(redisCache, times(2)).get(eq(RedisKeys.getAiAnswerKey("qna", AiResponseCache.cacheKey(PROMPT, null))),
+                eq(String.class));
+        verify(redisCache, times(1)).get(eq(RedisKeys.getAiAnswerKey("summary",
+                AiResponseCache.cacheKey(PROMPT, null))), eq(String.class));
+    }
+
+    @Test
+    void subSecondTtlIsWrittenAsOneSecond() {
+        cache.get("qna", PROMPT, null, loader("回答"));
+
+        verify(redisCache).set(anyString(), eq("回答"), eq(1L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void blankAnswerIsNotCached() {
+        cache.get("summary", PROMPT, null, loader(""));
+        cache.get("summary", PROMPT, null, loader(""));
+
+        assertThat(loads).hasValue(2);
+        verify(redisCache, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.SECONDS));
+    }
+
+    private Supplier<String> loader(String answer) {
+        return () -> {
+            loads.incrementAndGet();
+            return answer;
+        };
+    }
+}
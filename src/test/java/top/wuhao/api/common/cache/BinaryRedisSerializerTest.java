@@ -0,0 +1,163 @@
+package top.wuhao.api.common.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import top.wuhao.api.config.RedisCodecProperties;
+import top.wuhao.api.config.RedisConfig;
+import top.wuhao.api.entity.vo.ChatMessageVO;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 二进制编码的往返、旧 JSON 数据兼容与异常输入
+ *
+ * @author wang
+ */
+class BinaryRedisSerializerTest {
+
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    private final RedisSerializer<Object> binary = serializer(RedisCodecProperties.Format.BINARY);
+    private final RedisSerializer<Object> json = serializer(RedisCodecProperties.Format.JSON);
+    private final LocalDateTime now = LocalDateTime.of(2025, 11, 19, 10, 0);
+
+    @Test
+    void stringRoundTrip() {
+        byte[] bytes = binary.serialize("你好 redis");
+
+        assertThat(bytes[0]).isEqualTo((byte) 0xC1);
+        assertThat(binary.deserialize(bytes)).isEqualTo("你好 redis");
+        assertThat(binary.deserialize(binary.serialize(""))).isEqualTo("");
+    }
+
+    @Test
+    void numbersAreStoredAsDigits() {
+        // 计数器需要 INCR 能直接操作，写入纯数字
+        assertThat(new String(binary.serialize(42), StandardCharsets.US_ASCII)).isEqualTo("42");
+        assertThat(new String(binary.serialize(5_000_000_000L), StandardCharsets.US_ASCII)).isEqualTo("5000000000");
+
+        assertThat(binary.deserialize(binary.serialize(42))).isEqualTo(42);
+        assertThat(binary.deserialize(binary.serialize(5_000_000_000L))).isEqualTo(5_000_000_000L);
+    }
+
+    @Test
+    void objectRoundTrip() {
+        ChatSessionVO session = session(3);
+
+        Object result = binary.deserialize(binary.serialize(session));
+
+        assertThat(result).isInstanceOf(ChatSessionVO.class).usingRecursiveComparison().isEqualTo(session);
+    }
+
+    @Test
+    void mapRoundTrip() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("userId", 1L);
+        map.put("name", "wang");
+
+        assertThat(binary.deserialize(binary.serialize(map))).isEqualTo(map);
+    }
+
+    @Test
+    void largeValueIsCompressed() {
+        ChatSessionVO session = session(50);
+        byte[] uncompressed = serializer(RedisCodecProperties.Format.BINARY, 0).serialize(session);
+
+        byte[] bytes = binary.serialize(session);
+
+        assertThat(uncompressed.length).isGreaterThan(COMPRESS_THRESHOLD);
+        assertThat(bytes[2] & 0x10).isNotZero();
+        assertThat(bytes.length).isLessThan(uncompressed.length);
+        assertThat(binary.deserialize(bytes)).usingRecursiveComparison().isEqualTo(session);
+    }
+
+    @Test
+    void readsLegacyJson() {
+        ChatSessionVO session = session(2);
+
+        assertThat(binary.deserialize(json.serialize(session))).usingRecursiveComparison().isEqualTo(session);
+        assertThat(binary.deserialize(json.serialize("token"))).isEqualTo("token");
+        assertThat(binary.deserialize(json.serialize(7L))).isEqualTo(7);
+    }
+
+    @Test
+    void jsonFormatWritesJsonAndReadsBinary() {
+        ChatSessionVO session = session(2);
+
+        // 从二进制切回 JSON 写入时，已写入的二进制数据仍可读取
+        assertThat(json.deserialize(binary.serialize(session))).usingRecursiveComparison().isEqualTo(session);
+        assertThat(json.deserialize(binary.serialize(session(50)))).usingRecursiveComparison()
+                .isEqualTo(session(50));
+        assertThat(json.deserialize(binary.serialize("token"))).isEqualTo("token");
+        assertThat(json.deserialize(binary.serialize(7L))).isEqualTo(7);
+
+        byte[] bytes = json.serialize(session);
+        assertThat(bytes[0]).isEqualTo((byte) '[');
+        assertThat(json.deserialize(bytes)).usingRecursiveComparison().isEqualTo(session);
+        assertThat(binary.deserialize(bytes)).usingRecursiveComparison().isEqualTo(session);
+    }
+
+    @Test
+    void nullAndEmpty() {
+        assertThat(binary.serialize(null)).isEmpty();
+        assertThat(binary.deserialize(null)).isNull();
+        assertThat(binary.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] bytes = binary.serialize("value");
+        bytes[1] = 9;
+
+        assertThatThrownBy(() -> binary.deserialize(bytes)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> binary.deserialize(new byte[]{(byte) 0xC1})).isInstanceOf(SerializationException.class);
+    }
+
+    private ChatSessionVO session(int messages) {
+        ChatSessionVO session = new ChatSessionVO();
+        session.setId(1L);
+        session.setTitle("会话");
+        session.setUserId(2L);
+        session.setModelName("qwen-plus");
+        session.setStatus(true);
+        session.setLastMessageTime(now);
+        session.setCreateTime(now);
+        session.setUpdateTime(now);
+        session.setStar(false);
+        List<ChatMessageVO> list = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            ChatMessageVO message = new ChatMessageVO();
+            message.setId((long) i);
+            message.setSessionId(1L);
+            message.setRole(i % 2 == 0 ? "user" : "assistant");
+            message.setContent("这是第 " + i + " 条消息的内容，用于检查编码后的体积");
+            message.setTokens(20);
+            message.setCreateTime(now);
+            list.add(message);
+        }
+        session.setMessages(list);
+        session.setHasMoreMessages(false);
+        return session;
+    }
+
+    static RedisSerializer<Object> serializer(RedisCodecProperties.Format format) {
+        return serializer(format, COMPRESS_THRESHOLD);
+    }
+
+    static RedisSerializer<Object> serializer(RedisCodecProperties.Format format, int compressThreshold) {
+        RedisCodecProperties properties = new RedisCodecProperties();
+        properties.setFormat(format);
+        properties.setCompressThreshold(compressThreshold);
+        return RedisConfig.valueSerializer(properties);
+    }
+}
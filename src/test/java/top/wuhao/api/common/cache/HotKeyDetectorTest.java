@@ -0,0 +1,100 @@
+package top.wuhao.api.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 热点提升、本地副本，以及只为已提升的 key 发布失效消息
+ *
+ * @author wang
+ */
+class HotKeyDetectorTest {
+
+    private static final int THRESHOLD = 3;
+
+    private StringRedisTemplate stringRedisTemplate;
+    private HotKeyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setThreshold(THRESHOLD);
+        detector = new HotKeyDetector(properties, stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void writeToColdKeyIsNotPublished() {
+        detector.recordRead("session:1", "value");
+
+        detector.onWrite("session:1");
+
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void promotionIsAnnouncedAndLaterWritesArePublished() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            detector.recordRead("session:1", "value");
+        }
+        assertThat(detector.getReplica("session:1")).isEqualTo("value");
+        verify(stringRedisTemplate).convertAndSend(RedisKeys.getHotKeyPromotionChannel(), "session:1");
+
+        detector.onWrite("session:1");
+
+        assertThat(detector.getReplica("session:1")).isNull();
+        verify(stringRedisTemplate).convertAndSend(RedisKeys.getHotKeyChannel(), "session:1");
+    }
+
+    @Test
+    void writeToKeyPromotedOnOtherNodeIsPublished() {
+        detector.onMessage(message(RedisKeys.getHotKeyPromotionChannel(), "session:1\nsession:2"), null);
+
+        detector.onWrite("session:2");
+
+        verify(stringRedisTemplate).convertAndSend(RedisKeys.getHotKeyChannel(), "session:2");
+    }
+
+    @Test
+    void invalidationFromOtherNodeDropsReplica() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            detector.recordRead("session:1", "value");
+        }
+
+        detector.onMessage(message(RedisKeys.getHotKeyChannel(), "session:1"), null);
+
+        assertThat(detector.getReplica("session:1")).isNull();
+    }
+
+    @Test
+    void tieredCacheKeysAreExcludedByDefault() {
+        String key = RedisKeys.getTieredCacheKey(RedisKeys.getUserInfoCacheKey(1L));
+        for (int i = 0; i < THRESHOLD * 2; i++) {
+            detector.recordRead(key, "value");
+        }
+
+        detector.onWrite(key);
+
+        assertThat(detector.getReplica(key)).isNull();
+        assertThat(detector.snapshot()).isEmpty();
+        verify(stringRedisTemplate, never()).convertAndSend(eq(RedisKeys.getHotKeyChannel()), anyString());
+    }
+
+    private static DefaultMessage message(String channel, String body) {
+        return new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
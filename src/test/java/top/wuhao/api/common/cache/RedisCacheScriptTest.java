@@ -0,0 +1,82 @@
+package top.wuhao.api.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.wuhao.api.support.RedisContainerTest;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * RedisCache 中 Lua 脚本实现的原子操作，使用真实 Redis 验证脚本与值序列化器配合正确
+ *
+ * @author wang
+ */
+class RedisCacheScriptTest extends RedisContainerTest {
+
+    private HotKeyDetector hotKeyDetector;
+    private RedisCache redisCache;
+
+    @BeforeEach
+    void setUp() {
+        hotKeyDetector = mock(HotKeyDetector.class);
+        redisCache = new RedisCache(redisTemplate, hotKeyDetector);
+    }
+
+    @Test
+    void compareAndSetReplacesMatchingValue() {
+        redisCache.set("lock", "owner-a", 1, TimeUnit.MINUTES);
+
+        assertThat(redisCache.compareAndSet("lock", "owner-b", "owner-c", 1, TimeUnit.MINUTES)).isFalse();
+        assertThat(redisCache.get("lock")).isEqualTo("owner-a");
+
+        assertThat(redisCache.compareAndSet("lock", "owner-a", "owner-c", 2, TimeUnit.MINUTES)).isTrue();
+        assertThat(redisCache.get("lock")).isEqualTo("owner-c");
+        assertThat(redisCache.getExpire("lock")).isBetween(61L, 120L);
+        verify(hotKeyDetector, atLeastOnce()).onWrite("lock");
+    }
+
+    @Test
+    void compareAndSetIgnoresMissingKey() {
+        assertThat(redisCache.compareAndSet("missing", "a", "b", 1, TimeUnit.MINUTES)).isFalse();
+        assertThat(redisCache.hasKey("missing")).isFalse();
+    }
+
+    @Test
+    void compareAndSetWorksWithObjectValues() {
+        redisCache.set("counter-owner", 42L, 1, TimeUnit.MINUTES);
+
+        assertThat(redisCache.compareAndSet("counter-owner", 42L, 43L, 1, TimeUnit.MINUTES)).isTrue();
+        assertThat(redisCache.get("counter-owner")).isEqualTo(43);
+    }
+
+    @Test
+    void compareAndDeleteRemovesOnlyMatchingValue() {
+        redisCache.set("code", "123456", 1, TimeUnit.MINUTES);
+
+        assertThat(redisCache.compareAndDelete("code", "654321")).isFalse();
+        assertThat(redisCache.hasKey("code")).isTrue();
+
+        assertThat(redisCache.compareAndDelete("code", "123456")).isTrue();
+        assertThat(redisCache.hasKey("code")).isFalse();
+        // 同一个值只能核销一次
+        assertThat(redisCache.compareAndDelete("code", "123456")).isFalse();
+    }
+
+    @Test
+    void failedCompareDoesNotInvalidateReplicas() {
+        redisCache.set("key", "a", 1, TimeUnit.MINUTES);
+        clearInvocations(hotKeyDetector);
+
+        redisCache.compareAndDelete("key", "b");
+        redisCache.compareAndSet("key", "b", "c", 1, TimeUnit.MINUTES);
+
+        verify(hotKeyDetector, never()).onWrite("key");
+    }
+}
@@ -0,0 +1,107 @@
+package top.wuhao.api.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import top.wuhao.api.config.RedisCodecProperties;
+import top.wuhao.api.entity.vo.ChatMessageVO;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 值编码：原 JSON 与带版本头的二进制编码的体积和编解码耗时对比
+ * <p>
+ * 编码后的字节数在 setup 时记录到日志；运行方式同 {@code ConvertBenchmark}
+ *
+ * @author wang
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    /**
+     * 缓存的会话里带的消息条数：0 为会话列表项，20 为一页消息
+     */
+    @Param({"0", "20"})
+    private int messages;
+
+    @Param({"JSON", "BINARY"})
+    private RedisCodecProperties.Format format;
+
+    private RedisSerializer<Object> serializer;
+    private ChatSessionVO session;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        serializer = BinaryRedisSerializerTest.serializer(format);
+        LocalDateTime now = LocalDateTime.now();
+        session = new ChatSessionVO();
+        session.setId(1L);
+        session.setTitle("会话标题");
+        session.setUserId(1L);
+        session.setModelName("qwen-plus");
+        session.setStatus(true);
+        session.setLastMessage("最后一条消息");
+        session.setLastMessageTime(now);
+        session.setCreateTime(now);
+        session.setUpdateTime(now);
+        session.setStar(false);
+        List<ChatMessageVO> list = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            ChatMessageVO message = new ChatMessageVO();
+            message.setId((long) i);
+            message.setSessionId(1L);
+            message.setUserId(1L);
+            message.setRole(i % 2 == 0 ? "user" : "assistant");
+            message.setContent("消息内容 " + i + "，包含一段中等长度的回答文本用于模拟真实负载。");
+            message.setModelName("qwen-plus");
+            message.setTokens(100);
+            message.setHasThinking(false);
+            message.setWebSearch(false);
+            message.setStatus(true);
+            message.setCreateTime(now);
+            message.setUpdateTime(now);
+            list.add(message);
+        }
+        session.setMessages(list);
+        encoded = serializer.serialize(session);
+        log.info("[{}, messages={}] 编码后大小: {} 字节", format, messages, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(session);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RedisCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
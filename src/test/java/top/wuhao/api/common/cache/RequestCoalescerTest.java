@@ -0,0 +1,98 @@
+package top.wuhao.api.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 流式请求合并：后加入的订阅者先收到已产生的片段，上游结束或全部取消后移除
+ *
+ * @author wang
+ */
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(new SimpleMeterRegistry());
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void lateSubscriberReplaysEmittedChunksThenReceivesLiveOnes() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+
+        coalescer.stream("q", upstream(upstream::asFlux)).subscribe(first::add);
+        upstream.tryEmitNext("你");
+        upstream.tryEmitNext("好");
+        coalescer.stream("q", upstream(upstream::asFlux)).subscribe(second::add);
+
+        assertThat(second).containsExactly("你", "好");
+
+        upstream.tryEmitNext("！");
+        upstream.tryEmitComplete();
+
+        assertThat(first).containsExactly("你", "好", "！");
+        assertThat(second).containsExactly("你", "好", "！");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void completedStreamIsNotReused() {
+        coalescer.stream("q", upstream(() -> Flux.just("旧回答"))).blockLast();
+
+        List<String> chunks = coalescer.stream("q", upstream(() -> Flux.just("新回答"))).collectList().block();
+
+        assertThat(chunks).containsExactly("新回答");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void upstreamIsCancelledAfterLastSubscriberLeaves() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Supplier<Flux<String>> never = upstream(() -> Flux.<String>never().doOnCancel(() -> cancelled.set(true)));
+
+        Disposable first = coalescer.stream("q", never).subscribe();
+        Disposable second = coalescer.stream("q", never).subscribe();
+        first.dispose();
+
+        assertThat(cancelled).isFalse();
+
+        second.dispose();
+
+        assertThat(cancelled).isTrue();
+        coalescer.stream("q", never).subscribe().dispose();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void errorReachesEverySubscriberAndAllowsRetry() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        coalescer.stream("q", upstream(upstream::asFlux)).subscribe(chunk -> {
+        }, errors::add);
+        coalescer.stream("q", upstream(upstream::asFlux)).subscribe(chunk -> {
+        }, errors::add);
+        upstream.tryEmitError(new IllegalStateException("模型调用失败"));
+
+        assertThat(errors).hasSize(2).allMatch(IllegalStateException.class::isInstance);
+        assertThat(coalescer.stream("q", upstream(() -> Flux.just("重试"))).blockLast()).isEqualTo("重试");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    private <T> Supplier<Flux<T>> upstream(Supplier<Flux<T>> flux) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            return flux.get();
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package top.wuhao.api.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Token 本地缓存的命中、失效与加载期间失效的处理
+ *
+ * @author wang
+ */
+class TokenNearCacheTest {
+
+    private static final Long USER_ID = 1L;
+    private static final List<String> KEYS = List.of(RedisKeys.getUserTokenKey(USER_ID),
+            RedisKeys.getUserPreviousTokenKey(USER_ID));
+
+    private RedisCache redisCache;
+    private StringRedisTemplate stringRedisTemplate;
+    private TokenCacheProperties properties;
+    private TokenNearCache nearCache;
+
+    @BeforeEach
+    void setUp() {
+        redisCache = mock(RedisCache.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        properties = new TokenCacheProperties();
+        nearCache = new TokenNearCache(redisCache, stringRedisTemplate, properties,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void hitAfterFirstCheck() {
+        stored("token-a", null);
+
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isTrue();
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isTrue();
+
+        verify(redisCache, times(1)).multiGet(KEYS);
+    }
+
+    @Test
+    void unknownTokenIsInvalid() {
+        stored("token-a", null);
+
+        assertThat(nearCache.check(USER_ID, "token-b").valid()).isFalse();
+        assertThat(nearCache.check(USER_ID, "token-b").valid()).isFalse();
+
+        // 未命中的 Token 每次都回源，避免刚登录的新 Token 被旧缓存拒绝
+        verify(redisCache, times(2)).multiGet(KEYS);
+    }
+
+    @Test
+    void missingTokenIsInvalid() {
+        stored(null, null);
+
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isFalse();
+    }
+
+    @Test
+    void previousTokenReturnsRenewedToken() {
+        stored("token-new", "token-old");
+
+        TokenNearCache.TokenCheck check = nearCache.check(USER_ID, "token-old");
+
+        assertThat(check.valid()).isTrue();
+        assertThat(check.renewedToken()).isEqualTo("token-new");
+        assertThat(nearCache.check(USER_ID, "token-new").renewedToken()).isNull();
+    }
+
+    @Test
+    void invalidateEvictsAndPublishes() {
+        stored("token-a", null);
+        nearCache.check(USER_ID, "token-a");
+
+        nearCache.invalidate(USER_ID);
+        stored("token-b", null);
+
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isFalse();
+        assertThat(nearCache.check(USER_ID, "token-b").valid()).isTrue();
+        verify(stringRedisTemplate).convertAndSend(eq(RedisKeys.getUserTokenChannel()), anyString());
+    }
+
+    @Test
+    void messageFromOtherNodeEvicts() {
+        stored("token-a", null);
+        nearCache.check(USER_ID, "token-a");
+
+        nearCache.onMessage(message(USER_ID + ":" + System.currentTimeMillis()), null);
+        stored(null, null);
+
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isFalse();
+    }
+
+    @Test
+    void malformedMessageIsIgnored() {
+        stored("token-a", null);
+        nearCache.check(USER_ID, "token-a");
+
+        nearCache.onMessage(message("not-a-user"), null);
+
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isTrue();
+        verify(redisCache, times(1)).multiGet(KEYS);
+    }
+
+    @Test
+    void invalidationDuringLoadSkipsBackfill() {
+        // 读 Redis 期间收到失效消息：本次按读到的值返回，但不写入缓存
+        when(redisCache.multiGet(anyList())).thenAnswer(invocation -> {
+            nearCache.onMessage(message(String.valueOf(USER_ID)), null);
+            return Arrays.asList("token-a", null);
+        });
+
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isTrue();
+        assertThat(nearCache.check(USER_ID, "token-a").valid()).isTrue();
+
+        verify(redisCache, times(2)).multiGet(KEYS);
+    }
+
+    @Test
+    void disabledAlwaysReadsRedis() {
+        properties.setEnabled(false);
+        stored("token-a", null);
+
+        nearCache.check(USER_ID, "token-a");
+        nearCache.check(USER_ID, "token-a");
+
+        verify(redisCache, times(2)).multiGet(KEYS);
+    }
+
+    private void stored(String current, String previous) {
+        when(redisCache.multiGet(KEYS)).thenReturn(Arrays.asList(current, previous));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisKeys.getUserTokenChannel().getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package top.wuhao.api.common.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.utils.JwtClaims;
+import top.wuhao.api.common.utils.JwtUtils;
+import top.wuhao.api.config.JwtAuthProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次请求的撤销检查：本地撤销列表与按请求 GET Redis 的对比
+ * <p>
+ * 需要一个可用的 Redis，默认 localhost:6379，可用 -Dredis.host、-Dredis.port 指定；
+ * 运行方式同 {@code ConvertBenchmark}
+ *
+ * @author wang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevocationBenchmark {
+
+    private static final Long USER_ID = 1L;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private TokenRevocationList revocationList;
+    private JwtClaims claims;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "benchmark-secret-benchmark-secret-benchmark");
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 3_600_000L);
+        jwtUtils.init();
+        String token = jwtUtils.generateToken(USER_ID);
+        claims = jwtUtils.parseToken(token);
+        stringRedisTemplate.opsForValue().set(RedisKeys.getUserTokenKey(USER_ID), token, 1, TimeUnit.HOURS);
+
+        JwtAuthProperties properties = new JwtAuthProperties();
+        properties.setAuthMode(JwtAuthProperties.AuthMode.REVOCATION_LIST);
+        revocationList = new TokenRevocationList(stringRedisTemplate, properties, jwtUtils,
+                new RedisMessageListenerContainer(), new SimpleMeterRegistry());
+        revocationList.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stringRedisTemplate.delete(RedisKeys.getUserTokenKey(USER_ID));
+        connectionFactory.destroy();
+    }
+
+    /**
+     * REVOCATION_LIST：查本地布隆过滤器和用户撤销时间
+     */
+    @Benchmark
+    public boolean revocationList() {
+        return revocationList.isRevoked(claims);
+    }
+
+    /**
+     * REDIS_LOOKUP 未命中本地缓存时：每次请求 GET 一次 Redis
+     */
+    @Benchmark
+    public String redisLookup() {
+        return stringRedisTemplate.opsForValue().get(RedisKeys.getUserTokenKey(USER_ID));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RevocationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package top.wuhao.api.common.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.wuhao.api.common.cache.HotKeyDetector;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.cache.TokenNearCache;
+import top.wuhao.api.common.utils.JwtClaims;
+import top.wuhao.api.common.utils.JwtUtils;
+import top.wuhao.api.config.TokenRenewProperties;
+import top.wuhao.api.support.RedisContainerTest;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Token 续期的 Redis 操作，使用真实 Redis 验证轮换结果、旧 Token 的保留时间和无状态续期的跨节点复用
+ *
+ * @author wang
+ */
+class TokenRenewerRedisTest extends RedisContainerTest {
+
+    private static final Long USER_ID = 1L;
+    private static final long TOKEN_TTL = TimeUnit.HOURS.toMillis(1);
+
+    private JwtUtils jwtUtils;
+    private RedisCache redisCache;
+    private TokenNearCache tokenNearCache;
+    private TokenRenewProperties properties;
+    private TokenRenewer tokenRenewer;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "test-secret-test-secret-test-secret-test-secret");
+        ReflectionTestUtils.setField(jwtUtils, "expiration", TOKEN_TTL);
+        jwtUtils.init();
+        redisCache = new RedisCache(redisTemplate, mock(HotKeyDetector.class));
+        tokenNearCache = mock(TokenNearCache.class);
+        properties = new TokenRenewProperties();
+        tokenRenewer = new TokenRenewer(jwtUtils, redisCache, tokenNearCache, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rotateKeepsPreviousTokenForItsRemainingLifetime() {
+        String token = jwtUtils.generateToken(USER_ID);
+        redisCache.set(RedisKeys.getUserTokenKey(USER_ID), token, TOKEN_TTL, TimeUnit.MILLISECONDS);
+
+        renew(token);
+
+        Object current = redisCache.get(RedisKeys.getUserTokenKey(USER_ID));
+        assertThat(current).isNotNull().isNotEqualTo(token);
+        assertThat(redisCache.get(RedisKeys.getUserPreviousTokenKey(USER_ID))).isEqualTo(token);
+        // 旧 Token 剩余约 1 小时，远长于 5 分钟宽限期
+        long previousTtl = redisTemplate.getExpire(RedisKeys.getUserPreviousTokenKey(USER_ID), TimeUnit.MILLISECONDS);
+        assertThat(previousTtl).isGreaterThan(properties.getGrace().toMillis())
+                .isLessThanOrEqualTo(TOKEN_TTL);
+        verify(tokenNearCache).invalidate(USER_ID);
+    }
+
+    @Test
+    void rotateKeepsPreviousTokenAtLeastForGrace() {
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 1_000L);
+        String token = jwtUtils.generateToken(USER_ID);
+        ReflectionTestUtils.setField(jwtUtils, "expiration", TOKEN_TTL);
+        redisCache.set(RedisKeys.getUserTokenKey(USER_ID), token, 1, TimeUnit.MINUTES);
+
+        renew(token);
+
+        long previousTtl = redisTemplate.getExpire(RedisKeys.getUserPreviousTokenKey(USER_ID), TimeUnit.MILLISECONDS);
+        assertThat(previousTtl).isGreaterThan(properties.getGrace().toMillis() - 5_000);
+    }
+
+    @Test
+    void staleTokenIsNotRotated() {
+        String token = jwtUtils.generateToken(USER_ID);
+        String replaced = jwtUtils.generateToken(USER_ID);
+        redisCache.set(RedisKeys.getUserTokenKey(USER_ID), replaced, TOKEN_TTL, TimeUnit.MILLISECONDS);
+
+        renew(token);
+
+        assertThat(redisCache.get(RedisKeys.getUserTokenKey(USER_ID))).isEqualTo(replaced);
+        assertThat(redisCache.hasKey(RedisKeys.getUserPreviousTokenKey(USER_ID))).isFalse();
+        // 租约已释放，Token 替换后可立即再次续期
+        assertThat(redisCache.hasKey(RedisKeys.getTokenRenewLeaseKey(USER_ID))).isFalse();
+        verify(tokenNearCache, never()).invalidate(USER_ID);
+    }
+
+    @Test
+    void renewOncePerWindow() {
+        String token = jwtUtils.generateToken(USER_ID);
+        redisCache.set(RedisKeys.getUserTokenKey(USER_ID), token, TOKEN_TTL, TimeUnit.MILLISECONDS);
+        renew(token);
+        Object renewed = redisCache.get(RedisKeys.getUserTokenKey(USER_ID));
+
+        renew(renewed.toString());
+
+        assertThat(redisCache.get(RedisKeys.getUserTokenKey(USER_ID))).isEqualTo(renewed);
+    }
+
+    @Test
+    void statelessRenewalIsSharedAcrossNodes() {
+        JwtClaims claims = jwtUtils.parseToken(jwtUtils.generateToken(USER_ID));
+        TokenRenewer otherNode = new TokenRenewer(jwtUtils, redisCache, tokenNearCache, properties,
+                new SimpleMeterRegistry());
+
+        String renewed = tokenRenewer.renewStateless(claims);
+
+        assertThat(otherNode.renewStateless(claims)).isEqualTo(renewed);
+        assertThat(otherNode.findStatelessRenewal(claims)).isEqualTo(renewed);
+        assertThat(jwtUtils.parseToken(renewed).userId()).isEqualTo(USER_ID);
+    }
+
+    @Test
+    void statelessRenewalIsPerToken() {
+        JwtClaims first = jwtUtils.parseToken(jwtUtils.generateToken(USER_ID));
+        JwtClaims second = jwtUtils.parseToken(jwtUtils.generateToken(USER_ID));
+
+        assertThat(tokenRenewer.renewStateless(first)).isNotEqualTo(tokenRenewer.renewStateless(second));
+        assertThat(tokenRenewer.findStatelessRenewal(jwtUtils.parseToken(jwtUtils.generateToken(USER_ID)))).isNull();
+    }
+
+    private void renew(String token) {
+        ReflectionTestUtils.invokeMethod(tokenRenewer, "renew", USER_ID, token);
+    }
+}
@@ -0,0 +1,156 @@
+package top.wuhao.api.common.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.common.utils.JwtClaims;
+import top.wuhao.api.common.utils.JwtUtils;
+import top.wuhao.api.config.JwtAuthProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 撤销列表的布隆过滤器、用户级撤销边界与过期清理
+ *
+ * @author wang
+ */
+class TokenRevocationListTest {
+
+    private static final long TTL = 3_600_000;
+
+    private ZSetOperations<String, String> zSet;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        zSet = mock(ZSetOperations.class);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSet);
+        JwtUtils jwtUtils = mock(JwtUtils.class);
+        when(jwtUtils.getTokenTtlMillis()).thenReturn(TTL);
+        JwtAuthProperties properties = new JwtAuthProperties();
+        properties.setAuthMode(JwtAuthProperties.AuthMode.REVOCATION_LIST);
+        revocationList = new TokenRevocationList(stringRedisTemplate, properties, jwtUtils,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+        revocationList.afterPropertiesSet();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        TokenRevocationList.BloomFilter filter = new TokenRevocationList.BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("jti-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void bloomFilterFalsePositiveRateNearConfigured() {
+        TokenRevocationList.BloomFilter filter = new TokenRevocationList.BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void bloomFilterWithoutExpectedInsertions() {
+        TokenRevocationList.BloomFilter filter = new TokenRevocationList.BloomFilter(0, 0.001);
+        filter.put("jti");
+
+        assertThat(filter.mightContain("jti")).isTrue();
+    }
+
+    @Test
+    void revokedTokenIsRevoked() {
+        JwtClaims revoked = claims(1L, System.currentTimeMillis());
+        JwtClaims other = claims(1L, System.currentTimeMillis());
+        when(zSet.score(RedisKeys.getRevokedTokensKey(), revoked.tokenId())).thenReturn(1.0);
+
+        revocationList.revokeToken(revoked);
+
+        assertThat(revocationList.isRevoked(revoked)).isTrue();
+        assertThat(revocationList.isRevoked(other)).isFalse();
+        // 未命中布隆过滤器的 Token 不访问 Redis
+        verify(zSet, never()).score(RedisKeys.getRevokedTokensKey(), other.tokenId());
+    }
+
+    @Test
+    void userRevocationIncludesSameMillisecond() {
+        revocationList.revokeUser(1L);
+        ArgumentCaptor<Double> score = ArgumentCaptor.forClass(Double.class);
+        verify(zSet).add(eq(RedisKeys.getRevokedUsersKey()), eq("1"), score.capture());
+        long revokedAt = score.getValue().longValue();
+
+        assertThat(revocationList.isRevoked(claims(1L, revokedAt - 1))).isTrue();
+        assertThat(revocationList.isRevoked(claims(1L, revokedAt))).isTrue();
+        assertThat(revocationList.isRevoked(claims(1L, revokedAt + 1))).isFalse();
+        assertThat(revocationList.isRevoked(claims(2L, revokedAt - 1))).isFalse();
+    }
+
+    @Test
+    void userRevocationFromOtherNode() {
+        long revokedAt = System.currentTimeMillis();
+        revocationList.onMessage(message("u:3:" + revokedAt), null);
+
+        assertThat(revocationList.isRevoked(claims(3L, revokedAt))).isTrue();
+        assertThat(revocationList.isRevoked(claims(3L, revokedAt + 1))).isFalse();
+    }
+
+    @Test
+    void syncPrunesUserRevocationsOlderThanTokenLifetime() {
+        long expired = System.currentTimeMillis() - TTL - 60_000;
+        revocationList.onMessage(message("u:4:" + expired), null);
+        assertThat(revocationList.isRevoked(claims(4L, expired))).isTrue();
+
+        revocationList.sync();
+
+        assertThat(revocationList.isRevoked(claims(4L, expired))).isFalse();
+        verify(zSet, atLeastOnce()).removeRangeByScore(eq(RedisKeys.getRevokedUsersKey()),
+                eq(Double.NEGATIVE_INFINITY), anyDouble());
+    }
+
+    @Test
+    void malformedMessageIsIgnored() {
+        revocationList.onMessage(message("u:not-a-user"), null);
+
+        assertThat(revocationList.isRevoked(claims(1L, System.currentTimeMillis()))).isFalse();
+        verify(zSet, never()).score(eq(RedisKeys.getRevokedUsersKey()), anyString());
+    }
+
+    private static JwtClaims claims(Long userId, long issuedAt) {
+        return new JwtClaims(UUID.randomUUID().toString(), userId, new Date(issuedAt), new Date(issuedAt + TTL));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisKeys.getRevocationChannel().getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package top.wuhao.api.common.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求的 JWT 校验开销：原实现每次调用都重新构建密钥和解析器，并先校验再解析（验签两次）；
+ * 现实现复用启动时构建的解析器，只验签一次
+ *
+ * @author wang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = JwtUtilsTest.jwtUtils(JwtUtilsTest.SECRET, 3_600_000);
+        token = jwtUtils.generateToken(42L);
+    }
+
+    /**
+     * 原过滤器路径：validateToken + getUserIdFromToken，每次新建密钥和解析器
+     */
+    @Benchmark
+    public Long legacyValidateThenParse() {
+        boolean valid;
+        try {
+            Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(JwtUtilsTest.SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token);
+            valid = true;
+        } catch (Exception e) {
+            valid = false;
+        }
+        if (!valid) {
+            return null;
+        }
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(JwtUtilsTest.SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return Long.parseLong(claims.getSubject());
+    }
+
+    /**
+     * 现过滤器路径：共享解析器，验签并解析一次
+     */
+    @Benchmark
+    public JwtClaims parseOnce() {
+        return jwtUtils.parseToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthBenchmark.class.getSimpleName()).build()).run();
+    }
+}
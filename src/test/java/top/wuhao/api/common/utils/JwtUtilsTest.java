@@ -0,0 +1,83 @@
+package top.wuhao.api.common.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JwtUtils 签发与解析
+ *
+ * @author wang
+ */
+class JwtUtilsTest {
+
+    static final String SECRET = "test-secret-test-secret-test-secret-test-secret";
+
+    static JwtUtils jwtUtils(String secret, long expirationMillis) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "expiration", expirationMillis);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    @Test
+    void parseReturnsClaimsOfGeneratedToken() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        String token = jwtUtils.generateToken(42L);
+
+        JwtClaims claims = jwtUtils.parseToken(token);
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.userId()).isEqualTo(42L);
+        assertThat(claims.tokenId()).isNotBlank();
+        assertThat(claims.remainingMillis()).isBetween(1L, 60_000L);
+        assertThat(jwtUtils.getUserIdFromToken(token)).isEqualTo(42L);
+        assertThat(jwtUtils.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void eachTokenHasItsOwnId() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        assertThat(jwtUtils.parseToken(jwtUtils.generateToken(1L)).tokenId())
+                .isNotEqualTo(jwtUtils.parseToken(jwtUtils.generateToken(1L)).tokenId());
+    }
+
+    @Test
+    void issuedAtKeepsMilliseconds() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        long before = System.currentTimeMillis();
+        JwtClaims claims = jwtUtils.parseToken(jwtUtils.generateToken(1L));
+        long after = System.currentTimeMillis();
+
+        assertThat(claims.issuedAt().getTime()).isBetween(before, after);
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        String token = jwtUtils.generateToken(42L);
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThat(jwtUtils.parseToken(tampered)).isNull();
+        assertThat(jwtUtils.parseToken("not-a-token")).isNull();
+        assertThat(jwtUtils.parseToken(null)).isNull();
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String token = jwtUtils(SECRET + "-other", 60_000).generateToken(42L);
+        assertThat(jwtUtils(SECRET, 60_000).parseToken(token)).isNull();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, -1_000);
+        String token = jwtUtils.generateToken(42L);
+
+        assertThat(jwtUtils.parseToken(token)).isNull();
+        assertThat(jwtUtils.getExpiration(token)).isNull();
+    }
+}
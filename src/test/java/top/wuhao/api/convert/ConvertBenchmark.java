@@ -0,0 +1,121 @@
+package top.wuhao.api.convert;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.entity.ChatSession;
+import top.wuhao.api.entity.vo.ChatMessageVO;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct 转换与 BeanUtils.copyProperties 的对比基准
+ * <p>
+ * 运行：mvn test-compile 后在 IDE 中执行 main 方法，或
+ * {@code java -cp target/test-classes:<依赖> top.wuhao.api.convert.ConvertBenchmark}
+ *
+ * @author wang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertBenchmark {
+
+    /**
+     * 一页消息 / 一个用户的会话列表大小
+     */
+    @Param({"20", "200"})
+    private int size;
+
+    private List<ChatSession> sessions;
+    private List<ChatMessage> messages;
+
+    @Setup
+    public void setup() {
+        sessions = new ArrayList<>(size);
+        messages = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            sessions.add(new ChatSession()
+                    .setId((long) i)
+                    .setTitle("会话 " + i)
+                    .setUserId(1L)
+                    .setModelName("qwen-plus")
+                    .setStatus(true)
+                    .setLastMessage("最后一条消息 " + i)
+                    .setLastMessageTime(now)
+                    .setCreateTime(now)
+                    .setUpdateTime(now)
+                    .setStar(i % 10 == 0));
+            messages.add(new ChatMessage()
+                    .setId((long) i)
+                    .setSessionId(1L)
+                    .setUserId(1L)
+                    .setRole(i % 2 == 0 ? "user" : "assistant")
+                    .setContent("消息内容 " + i)
+                    .setModelName("qwen-plus")
+                    .setTokens(100)
+                    .setHasThinking(false)
+                    .setWebSearch(false)
+                    .setStatus(true)
+                    .setCreateTime(now)
+                    .setUpdateTime(now));
+        }
+    }
+
+    @Benchmark
+    public List<ChatSessionVO> sessionsMapStruct() {
+        return ChatSessionConvert.INSTANCE.convertList(sessions);
+    }
+
+    @Benchmark
+    public List<ChatSessionVO> sessionsBeanUtils() {
+        List<ChatSessionVO> result = new ArrayList<>(sessions.size());
+        for (ChatSession session : sessions) {
+            ChatSessionVO vo = new ChatSessionVO();
+            BeanUtils.copyProperties(session, vo);
+            result.add(vo);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ChatMessageVO> messagesMapStruct() {
+        return ChatMessageConvert.INSTANCE.convertList(messages);
+    }
+
+    @Benchmark
+    public List<ChatMessageVO> messagesBeanUtils() {
+        List<ChatMessageVO> result = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            ChatMessageVO vo = new ChatMessageVO();
+            BeanUtils.copyProperties(message, vo);
+            result.add(vo);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConvertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
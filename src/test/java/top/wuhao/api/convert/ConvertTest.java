@@ -0,0 +1,79 @@
+package top.wuhao.api.convert;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.entity.ChatSession;
+import top.wuhao.api.entity.vo.ChatMessageVO;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MapStruct 转换结果与原先 BeanUtils.copyProperties 一致
+ *
+ * @author wang
+ */
+class ConvertTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 11, 19, 10, 0);
+
+    @Test
+    void sessionMatchesBeanUtils() {
+        ChatSession session = new ChatSession()
+                .setId(1L)
+                .setTitle("会话")
+                .setUserId(2L)
+                .setModelName("qwen-plus")
+                .setStatus(true)
+                .setLastMessage("最后一条")
+                .setLastMessageTime(now)
+                .setCreateTime(now)
+                .setUpdateTime(now)
+                .setStar(true);
+        ChatSessionVO expected = new ChatSessionVO();
+        BeanUtils.copyProperties(session, expected);
+
+        ChatSessionVO actual = ChatSessionConvert.INSTANCE.convert(session);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(actual.getTitle()).isEqualTo("会话");
+        assertThat(actual.getMessages()).isNull();
+    }
+
+    @Test
+    void messageMatchesBeanUtils() {
+        ChatMessage message = new ChatMessage()
+                .setId(1L)
+                .setSessionId(2L)
+                .setUserId(3L)
+                .setRole("assistant")
+                .setContent("回答")
+                .setModelName("qwen-plus")
+                .setTokens(10)
+                .setHasThinking(true)
+                .setThinkingContent("思考")
+                .setWebSearch(false)
+                .setStatus(true)
+                .setCreateTime(now)
+                .setUpdateTime(now);
+        ChatMessageVO expected = new ChatMessageVO();
+        BeanUtils.copyProperties(message, expected);
+
+        ChatMessageVO actual = ChatMessageConvert.INSTANCE.convert(message);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(actual.getContent()).isEqualTo("回答");
+    }
+
+    @Test
+    void convertListKeepsOrderAndNulls() {
+        assertThat(ChatMessageConvert.INSTANCE.convertList(null)).isNull();
+        List<ChatMessageVO> result = ChatMessageConvert.INSTANCE.convertList(List.of(
+                new ChatMessage().setId(2L), new ChatMessage().setId(1L)));
+        assertThat(result).extracting(ChatMessageVO::getId).containsExactly(2L, 1L);
+    }
+}
@@ -0,0 +1,95 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 检查点编解码：全量与逆向增量的往返，以及消息列表的截断还原
+ *
+ * @author wang
+ */
+class CheckpointCodecTest {
+
+    private final CheckpointCodec codec = new CheckpointCodec();
+
+    @Test
+    void fullRoundTrip() {
+        Checkpoint checkpoint = checkpoint("full",
+                List.of(new UserMessage("你好"), new AssistantMessage("你好，有什么可以帮你")));
+
+        Checkpoint decoded = codec.decode(codec.encodeFull(checkpoint), null);
+
+        assertThat(decoded.getId()).isEqualTo("full");
+        assertThat(decoded.getNodeId()).isEqualTo("node");
+        assertThat(decoded.getNextNodeId()).isEqualTo("next");
+        assertThat(decoded.getState()).containsEntry("step", "full").containsEntry("count", 2);
+        assertThat(texts(decoded)).containsExactly("你好", "你好，有什么可以帮你");
+        assertThat(decoded.getState().get("messages")).asList()
+                .first().isInstanceOf(UserMessage.class);
+    }
+
+    @Test
+    void deltaRestoresOlderFromNewer() {
+        List<Message> messages = new ArrayList<>(List.of(new UserMessage("第一问"), new AssistantMessage("第一答")));
+        Checkpoint older = checkpoint("older", new ArrayList<>(messages));
+        older.getState().put("draft", "草稿");
+        messages.add(new UserMessage("第二问"));
+        Checkpoint newer = checkpoint("newer", messages);
+
+        Checkpoint decodedNewer = codec.decode(codec.encodeFull(newer), null);
+        Checkpoint decodedOlder = codec.decode(codec.encodeDelta(older, newer), decodedNewer);
+
+        assertThat(decodedOlder.getId()).isEqualTo("older");
+        assertThat(decodedOlder.getState()).containsEntry("step", "older").containsEntry("draft", "草稿");
+        assertThat(texts(decodedOlder)).containsExactly("第一问", "第一答");
+    }
+
+    @Test
+    void deltaRemovesKeysAddedLater() {
+        Checkpoint older = checkpoint("older", List.of());
+        Checkpoint newer = checkpoint("newer", List.of());
+        newer.getState().put("answer", "答案");
+
+        Checkpoint decodedOlder = codec.decode(codec.encodeDelta(older, newer), newer);
+
+        assertThat(decodedOlder.getState()).doesNotContainKey("answer");
+    }
+
+    @Test
+    void unknownVersionIsRejected() {
+        assertThatThrownBy(() -> codec.decode(new byte[]{1, 2, 3}, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Checkpoint checkpoint(String step, List<Message> messages) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("step", step);
+        state.put("count", 2);
+        state.put("messages", messages);
+        return Checkpoint.builder()
+                .id(step)
+                .state(state)
+                .nodeId("node")
+                .nextNodeId("next")
+                .build();
+    }
+
+    private static List<String> texts(Checkpoint checkpoint) {
+        List<String> texts = new ArrayList<>();
+        for (Object message : (List<?>) checkpoint.getState().get("messages")) {
+            texts.add(((Message) message).getText());
+        }
+        return texts;
+    }
+}
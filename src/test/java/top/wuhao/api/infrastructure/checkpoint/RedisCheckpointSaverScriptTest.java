@@ -0,0 +1,181 @@
+package top.wuhao.api.infrastructure.checkpoint;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import top.wuhao.api.entity.AgentCheckpoint;
+import top.wuhao.api.mapper.AgentCheckpointMapper;
+import top.wuhao.api.support.RedisContainerTest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 检查点的 Lua 脚本与版本号比较：两个实例共用一个 Redis，模拟两个节点交替读写同一会话线程
+ *
+ * @author wang
+ */
+class RedisCheckpointSaverScriptTest extends RedisContainerTest {
+
+    private final RunnableConfig config = RunnableConfig.builder().threadId("thread-1").build();
+    private RedisCheckpointSaver nodeA;
+    private RedisCheckpointSaver nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new RedisCheckpointSaver(redisTemplate, mock(AgentCheckpointMapper.class), new CheckpointProperties());
+        nodeB = new RedisCheckpointSaver(redisTemplate, mock(AgentCheckpointMapper.class), new CheckpointProperties());
+    }
+
+    @Test
+    void pushAndReadBack() throws Exception {
+        nodeA.put(config, checkpoint("first"));
+        nodeA.put(config, checkpoint("second"));
+
+        assertThat(nodeB.list(config)).extracting(this::step).containsExactly("second", "first");
+        assertThat(nodeB.get(config)).map(this::step).contains("second");
+    }
+
+    @Test
+    void readSeesWriteFromOtherNode() throws Exception {
+        nodeA.put(config, checkpoint("first"));
+        assertThat(nodeB.get(config)).map(this::step).contains("first");
+
+        nodeA.put(config, checkpoint("second"));
+
+        // B 本地缓存的是旧版本，读取前比对版本号后重新加载
+        assertThat(nodeB.get(config)).map(this::step).contains("second");
+    }
+
+    @Test
+    void concurrentWriteIsNotLost() throws Exception {
+        nodeA.put(config, checkpoint("first"));
+        nodeB.list(config);
+        nodeA.put(config, checkpoint("from-a"));
+
+        // B 本地是旧数据，写入前比对版本号重新加载（或脚本比较失败后重试），A 的写入不会被覆盖
+        nodeB.put(config, checkpoint("from-b"));
+
+        assertThat(nodeA.list(config)).extracting(this::step).containsExactly("from-b", "from-a", "first");
+    }
+
+    @Test
+    void replaceExistingCheckpoint() throws Exception {
+        Checkpoint first = checkpoint("first");
+        nodeA.put(config, first);
+        nodeA.put(config, checkpoint("second"));
+        nodeB.list(config);
+
+        RunnableConfig replace = RunnableConfig.builder(config).checkPointId(first.getId()).build();
+        nodeA.put(replace, Checkpoint.builder().id(first.getId()).state(state("first-edited"))
+                .nodeId("node").nextNodeId("next").build());
+
+        assertThat(nodeB.list(config)).extracting(this::step).containsExactly("second", "first-edited");
+    }
+
+    @Test
+    void clearInvalidatesOtherNodes() throws Exception {
+        nodeA.put(config, checkpoint("first"));
+        assertThat(nodeB.list(config)).hasSize(1);
+
+        nodeA.clear(config);
+
+        assertThat(nodeB.list(config)).isEmpty();
+        // 清除后版本号递增而不是归零，之前缓存了数据的节点写入时会冲突并重新加载
+        nodeB.put(config, checkpoint("after-clear"));
+        assertThat(nodeA.list(config)).extracting(this::step).containsExactly("after-clear");
+    }
+
+    @Test
+    void keepsConfiguredNumberOfCheckpoints() throws Exception {
+        CheckpointProperties properties = new CheckpointProperties();
+        properties.setMaxCheckpoints(3);
+        RedisCheckpointSaver saver = new RedisCheckpointSaver(redisTemplate, mock(AgentCheckpointMapper.class),
+                properties);
+        for (int i = 1; i <= 5; i++) {
+            saver.put(config, checkpoint("step-" + i));
+        }
+
+        RedisCheckpointSaver reader = new RedisCheckpointSaver(redisTemplate, mock(AgentCheckpointMapper.class),
+                properties);
+        assertThat(reader.list(config)).extracting(this::step).containsExactly("step-5", "step-4", "step-3");
+    }
+
+    @Test
+    void newerFallbackCopyIsMovedBackToRedis() throws Exception {
+        nodeA.put(config, checkpoint("before-outage"));
+        // 兜底版本号以毫秒时间为下限，间隔几毫秒保证晚于 Redis 中的版本
+        Thread.sleep(5);
+
+        // Redis 故障时写入的节点，数据只落到 MySQL
+        AgentCheckpointMapper outageMapper = mock(AgentCheckpointMapper.class);
+        RedisCheckpointSaver outage = new RedisCheckpointSaver(brokenRedisTemplate(), outageMapper,
+                new CheckpointProperties());
+        outage.put(config, checkpoint("during-outage"));
+        ArgumentCaptor<AgentCheckpoint> row = ArgumentCaptor.forClass(AgentCheckpoint.class);
+        verify(outageMapper).upsert(row.capture());
+
+        // Redis 恢复后，另一个节点加载时 Redis 仍是故障前的旧列表，应以较新的 MySQL 数据为准
+        AgentCheckpointMapper mapper = mock(AgentCheckpointMapper.class);
+        when(mapper.selectById("thread-1")).thenReturn(row.getValue());
+        RedisCheckpointSaver recovered = new RedisCheckpointSaver(redisTemplate, mapper, new CheckpointProperties());
+
+        assertThat(recovered.list(config)).extracting(this::step).containsExactly("during-outage");
+        verify(mapper).deleteByVersion("thread-1", row.getValue().getVersion());
+        // 已回写 Redis，只读 Redis 的节点也能看到
+        assertThat(nodeB.list(config)).extracting(this::step).containsExactly("during-outage");
+    }
+
+    @Test
+    void staleFallbackCopyIsDropped() throws Exception {
+        nodeA.put(config, checkpoint("in-redis"));
+
+        AgentCheckpointMapper mapper = mock(AgentCheckpointMapper.class);
+        when(mapper.selectById("thread-1")).thenReturn(new AgentCheckpoint()
+                .setThreadId("thread-1")
+                .setPayload(new byte[]{0, 0, 0, 0})
+                .setCheckpointCount(0)
+                .setVersion(1L));
+        RedisCheckpointSaver reader = new RedisCheckpointSaver(redisTemplate, mapper, new CheckpointProperties());
+
+        assertThat(reader.list(config)).extracting(this::step).containsExactly("in-redis");
+        verify(mapper).deleteByVersion("thread-1", 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, Object> brokenRedisTemplate() {
+        return mock(RedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("Redis 不可用");
+        });
+    }
+
+    private Checkpoint checkpoint(String step) {
+        return Checkpoint.builder()
+                .id(UUID.randomUUID().toString())
+                .state(state(step))
+                .nodeId("node")
+                .nextNodeId("next")
+                .build();
+    }
+
+    private static Map<String, Object> state(String step) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("step", step);
+        state.put("input", "同一个问题");
+        return state;
+    }
+
+    private String step(Checkpoint checkpoint) {
+        return (String) checkpoint.getState().get("step");
+    }
+}
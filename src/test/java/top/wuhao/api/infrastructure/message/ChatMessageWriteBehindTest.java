@@ -0,0 +1,194 @@
+package top.wuhao.api.infrastructure.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.wuhao.api.config.ChatMessageProperties;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.config.JacksonConfig;
+import top.wuhao.api.entity.ChatMessage;
+import top.wuhao.api.mapper.ChatMessageMapper;
+import top.wuhao.api.mapper.ChatSessionMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 消息异步写入：启动时回放残留日志、回放沿用原消息ID（依赖 INSERT IGNORE 去重）、落库前的读己之写
+ *
+ * @author wang
+ */
+class ChatMessageWriteBehindTest {
+
+    private static final Long SESSION_ID = 10L;
+
+    @TempDir
+    Path logDir;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 11, 19, 10, 0);
+    private ObjectMapper objectMapper;
+    private ChatMessageMapper chatMessageMapper;
+    private ChatSessionMapper chatSessionMapper;
+    private List<Long> insertedIds;
+    private final List<ChatMessageWriteBehind> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new JacksonConfig().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        objectMapper = builder.build();
+
+        chatMessageMapper = mock(ChatMessageMapper.class);
+        chatSessionMapper = mock(ChatSessionMapper.class);
+        insertedIds = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            messages.forEach(message -> insertedIds.add(message.getId()));
+            return messages.size();
+        }).when(chatMessageMapper).insertBatch(anyList());
+        // 默认所有会话都未删除
+        when(chatSessionMapper.selectLiveSessionIdsForShare(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ChatMessageWriteBehind writeBehind : started) {
+            writeBehind.destroy();
+        }
+    }
+
+    @Test
+    void replaysLeftoverSegmentOnStartup() throws Exception {
+        ChatMessage first = message(1L, "第一条");
+        ChatMessage second = message(2L, "第二条");
+        // 崩溃时最后一行可能只写了一半
+        Files.writeString(logDir.resolve("chat-message-3.log"), line(first) + line(second) + "{\"id\":\"3\",\"sess",
+                StandardCharsets.UTF_8);
+
+        start(logDir);
+
+        assertThat(insertedIds).containsExactly(1L, 2L);
+        verify(chatSessionMapper).updateLastMessage(SESSION_ID, "第二条", now);
+        assertThat(logDir.resolve("chat-message-3.log")).doesNotExist();
+    }
+
+    @Test
+    void replayOfFlushedMessagesKeepsTheirIds() throws Exception {
+        ChatMessageWriteBehind writeBehind = start(logDir);
+        ChatMessage message = message(null, "已落库但分段未删除");
+        writeBehind.submit(message);
+        verify(chatMessageMapper, timeout(2000)).insertBatch(anyList());
+
+        // 模拟落库后、删除分段前崩溃：保留此刻的日志分段，在另一个目录重启
+        Path crashed = Files.createDirectory(logDir.resolve("crashed"));
+        try (Stream<Path> segments = Files.list(logDir)) {
+            for (Path segment : segments.filter(Files::isRegularFile).toList()) {
+                Files.copy(segment, crashed.resolve(segment.getFileName()));
+            }
+        }
+        start(crashed);
+
+        // 回放重复插入同一个ID，由 INSERT IGNORE 忽略，不会产生重复消息
+        assertThat(insertedIds).containsExactly(message.getId(), message.getId());
+        assertThat(insertBatchStatement()).contains("INSERT IGNORE INTO chat_message");
+    }
+
+    @Test
+    void replayDropsMessagesOfDeletedSessions() throws Exception {
+        when(chatSessionMapper.selectLiveSessionIdsForShare(anyCollection())).thenReturn(List.of());
+        Files.writeString(logDir.resolve("chat-message-1.log"), line(message(1L, "会话已删除")),
+                StandardCharsets.UTF_8);
+
+        start(logDir);
+
+        verify(chatMessageMapper, never()).insertBatch(anyList());
+        assertThat(logDir.resolve("chat-message-1.log")).doesNotExist();
+    }
+
+    @Test
+    void pendingMessagesAreReadableBeforeFlush() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.<List<ChatMessage>>getArgument(0).size();
+        }).when(chatMessageMapper).insertBatch(anyList());
+        ChatMessageWriteBehind writeBehind = start(logDir);
+        ChatMessage persisted = message(1L, "已在库中");
+        ChatMessage pending = message(null, "尚未落库");
+
+        writeBehind.submit(pending);
+
+        assertThat(writeBehind.mergePending(SESSION_ID, List.of(persisted), null, null, true, 10))
+                .containsExactly(persisted, pending);
+        assertThat(writeBehind.mergePending(SESSION_ID, List.of(persisted), null, pending.getId(), true, 10))
+                .containsExactly(persisted);
+        release.countDown();
+    }
+
+    private ChatMessageWriteBehind start(Path dir) throws IOException {
+        ChatMessageProperties properties = new ChatMessageProperties();
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setLogDir(dir.toString());
+        properties.getWriteBehind().setFlushInterval(Duration.ofMillis(10));
+        properties.getWriteBehind().setShutdownTimeout(Duration.ofSeconds(1));
+        ChatMessageWriteBehind writeBehind = new ChatMessageWriteBehind(chatMessageMapper, chatSessionMapper,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), objectMapper, properties,
+                new ChatSessionProperties(), new SimpleMeterRegistry());
+        writeBehind.afterPropertiesSet();
+        started.add(writeBehind);
+        return writeBehind;
+    }
+
+    private ChatMessage message(Long id, String content) {
+        return new ChatMessage()
+                .setId(id)
+                .setSessionId(SESSION_ID)
+                .setUserId(1L)
+                .setRole("user")
+                .setContent(content)
+                .setCreateTime(now)
+                .setUpdateTime(now);
+    }
+
+    private String line(ChatMessage message) throws IOException {
+        return objectMapper.writeValueAsString(message) + "\n";
+    }
+
+    private static String insertBatchStatement() throws IOException {
+        try (InputStream in = ChatMessageWriteBehindTest.class.getResourceAsStream("/mapper/ChatMessageMapper.xml")) {
+            assertThat(in).isNotNull();
+            String xml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            int start = xml.indexOf("<insert id=\"insertBatch\">");
+            return xml.substring(start, xml.indexOf("</insert>", start));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package top.wuhao.api.infrastructure.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.config.JacksonConfig;
+import top.wuhao.api.entity.vo.ChatSessionVO;
+import top.wuhao.api.support.RedisContainerTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 会话列表索引的 Lua 脚本，重点验证重建令牌：查库期间有写入提交时放弃写回
+ *
+ * @author wang
+ */
+class ChatSessionIndexScriptTest extends RedisContainerTest {
+
+    private static final Long USER_ID = 1L;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 11, 19, 10, 0);
+    private ChatSessionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // 与应用使用相同的 Jackson 配置，TOUCH 脚本写入的时间格式需能读回
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new JacksonConfig().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        ObjectMapper objectMapper = builder.build();
+        index = new ChatSessionIndex(stringRedisTemplate, objectMapper, new ChatSessionProperties());
+    }
+
+    @Test
+    void rebuildOrdersStarredThenLatest() {
+        rebuild(session(1L, now.minusHours(2), false), session(2L, now.minusHours(1), false),
+                session(3L, now.minusHours(3), true));
+
+        assertThat(index.list(USER_ID)).extracting(ChatSessionVO::getId).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void missingIndexIsNotUpdated() {
+        index.upsert(session(1L, now, false));
+
+        assertThat(index.list(USER_ID)).isNull();
+    }
+
+    @Test
+    void upsertDuringRebuildDiscardsSnapshot() {
+        String token = index.beginRebuild(USER_ID);
+        // 查库之后、写回之前提交了新会话
+        index.upsert(session(2L, now, false));
+
+        index.rebuild(USER_ID, token, List.of(session(1L, now.minusHours(1), false)));
+
+        assertThat(index.list(USER_ID)).isNull();
+    }
+
+    @Test
+    void removeDuringRebuildDiscardsSnapshot() {
+        String token = index.beginRebuild(USER_ID);
+        index.remove(USER_ID, 1L);
+
+        index.rebuild(USER_ID, token, List.of(session(1L, now, false)));
+
+        assertThat(index.list(USER_ID)).isNull();
+    }
+
+    @Test
+    void touchDuringRebuildDiscardsSnapshot() {
+        String token = index.beginRebuild(USER_ID);
+        index.touch(USER_ID, 1L, now, "新消息");
+
+        index.rebuild(USER_ID, token, List.of(session(1L, now.minusHours(1), false)));
+
+        assertThat(index.list(USER_ID)).isNull();
+    }
+
+    @Test
+    void onlyLatestRebuildIsApplied() {
+        String first = index.beginRebuild(USER_ID);
+        String second = index.beginRebuild(USER_ID);
+
+        index.rebuild(USER_ID, first, List.of(session(1L, now, false)));
+        assertThat(index.list(USER_ID)).isNull();
+
+        index.rebuild(USER_ID, second, List.of(session(1L, now, false), session(2L, now.minusHours(1), false)));
+        assertThat(index.list(USER_ID)).extracting(ChatSessionVO::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void tokenIsSingleUse() {
+        String token = index.beginRebuild(USER_ID);
+        index.rebuild(USER_ID, token, List.of(session(1L, now, false)));
+        index.upsert(session(2L, now.plusHours(1), false));
+
+        // 迟到的同一令牌写回不能覆盖之后的增量更新
+        index.rebuild(USER_ID, token, List.of(session(1L, now, false)));
+
+        assertThat(index.list(USER_ID)).extracting(ChatSessionVO::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void incrementalUpdatesOnBuiltIndex() {
+        rebuild(session(1L, now.minusHours(2), false), session(2L, now.minusHours(1), false));
+
+        index.touch(USER_ID, 1L, now, "最新的消息");
+        List<ChatSessionVO> afterTouch = index.list(USER_ID);
+        assertThat(afterTouch).extracting(ChatSessionVO::getId).containsExactly(1L, 2L);
+        assertThat(afterTouch.get(0).getLastMessage()).isEqualTo("最新的消息");
+        assertThat(afterTouch.get(0).getUpdateTime()).isEqualTo(now);
+
+        index.remove(USER_ID, 1L);
+        assertThat(index.list(USER_ID)).extracting(ChatSessionVO::getId).containsExactly(2L);
+    }
+
+    @Test
+    void emptyRebuildIsCached() {
+        rebuild();
+
+        assertThat(index.list(USER_ID)).isEmpty();
+    }
+
+    private void rebuild(ChatSessionVO... sessions) {
+        index.rebuild(USER_ID, index.beginRebuild(USER_ID), List.of(sessions));
+    }
+
+    private ChatSessionVO session(Long id, LocalDateTime updateTime, boolean star) {
+        ChatSessionVO session = new ChatSessionVO();
+        session.setId(id);
+        session.setUserId(USER_ID);
+        session.setTitle("会话 " + id);
+        session.setModelName("qwen-plus");
+        session.setStatus(false);
+        session.setStar(star);
+        session.setCreateTime(updateTime);
+        session.setUpdateTime(updateTime);
+        return session;
+    }
+}
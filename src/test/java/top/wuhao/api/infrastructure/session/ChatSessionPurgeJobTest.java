@@ -0,0 +1,129 @@
+package top.wuhao.api.infrastructure.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.wuhao.api.common.cache.RedisCache;
+import top.wuhao.api.common.cache.RedisKeys;
+import top.wuhao.api.config.ChatSessionProperties;
+import top.wuhao.api.mapper.ChatMessageMapper;
+import top.wuhao.api.mapper.ChatSessionMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 已删除会话清理：分批删除消息、只标记会话、游标推进与失败跳过
+ *
+ * @author wang
+ */
+class ChatSessionPurgeJobTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    private ChatSessionMapper chatSessionMapper;
+    private ChatMessageMapper chatMessageMapper;
+    private RedisCache redisCache;
+    private ChatSessionProperties properties;
+    private ChatSessionPurgeJob job;
+
+    @BeforeEach
+    void setUp() {
+        chatSessionMapper = mock(ChatSessionMapper.class);
+        chatMessageMapper = mock(ChatMessageMapper.class);
+        redisCache = mock(RedisCache.class);
+        properties = new ChatSessionProperties();
+        properties.getPurge().setEnabled(true);
+        properties.getPurge().setChunkSize(CHUNK_SIZE);
+        // 不限速，测试中不休眠
+        properties.getPurge().setRowsPerSecond(0);
+        when(redisCache.setIfAbsent(eq(RedisKeys.getSessionPurgeLockKey()), anyString(), anyLong(),
+                any(TimeUnit.class))).thenReturn(true);
+        job = new ChatSessionPurgeJob(chatSessionMapper, chatMessageMapper, redisCache, properties,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void disabledByDefault() {
+        job = new ChatSessionPurgeJob(chatSessionMapper, chatMessageMapper, redisCache, new ChatSessionProperties(),
+                new SimpleMeterRegistry());
+
+        job.run();
+
+        verifyNoInteractions(chatSessionMapper, chatMessageMapper, redisCache);
+    }
+
+    @Test
+    void skipsWhenAnotherNodeHoldsLock() {
+        when(redisCache.setIfAbsent(eq(RedisKeys.getSessionPurgeLockKey()), anyString(), anyLong(),
+                any(TimeUnit.class))).thenReturn(false);
+
+        job.run();
+
+        verifyNoInteractions(chatSessionMapper, chatMessageMapper);
+    }
+
+    @Test
+    void deletesMessagesInChunksThenMarksSession() {
+        when(chatSessionMapper.selectDeletedSessionIds(eq(0L), anyInt())).thenReturn(List.of(7L));
+        when(chatMessageMapper.purgeBySessionId(7L, CHUNK_SIZE)).thenReturn(2, 2, 1);
+
+        job.run();
+
+        var order = inOrder(chatMessageMapper, chatSessionMapper, redisCache);
+        order.verify(chatMessageMapper, times(3)).purgeBySessionId(7L, CHUNK_SIZE);
+        order.verify(chatSessionMapper).markSessionPurged(7L);
+        order.verify(redisCache).set(RedisKeys.getSessionPurgeCursorKey(), 7L);
+        verify(redisCache).delete(RedisKeys.getChatSummaryKey(7L));
+        verify(redisCache).compareAndDelete(eq(RedisKeys.getSessionPurgeLockKey()), anyString());
+    }
+
+    @Test
+    void resumesFromCursor() {
+        when(redisCache.get(RedisKeys.getSessionPurgeCursorKey())).thenReturn(7L);
+        when(chatSessionMapper.selectDeletedSessionIds(eq(7L), anyInt())).thenReturn(List.of(9L));
+
+        job.run();
+
+        verify(chatMessageMapper).purgeBySessionId(9L, CHUNK_SIZE);
+        verify(chatSessionMapper).markSessionPurged(9L);
+        verify(redisCache).set(RedisKeys.getSessionPurgeCursorKey(), 9L);
+    }
+
+    @Test
+    void failingSessionDoesNotBlockQueue() {
+        when(chatSessionMapper.selectDeletedSessionIds(eq(0L), anyInt())).thenReturn(List.of(1L, 2L));
+        when(chatMessageMapper.purgeBySessionId(1L, CHUNK_SIZE)).thenThrow(new IllegalStateException("lock wait"));
+
+        job.run();
+
+        verify(chatSessionMapper, never()).markSessionPurged(1L);
+        verify(chatSessionMapper).markSessionPurged(2L);
+        // 游标越过失败的会话，下一轮不会再卡在它上面
+        verify(redisCache).set(RedisKeys.getSessionPurgeCursorKey(), 2L);
+    }
+
+    @Test
+    void finishedScanRestartsFromBeginning() {
+        when(redisCache.get(RedisKeys.getSessionPurgeCursorKey())).thenReturn(9L);
+        when(chatSessionMapper.selectDeletedSessionIds(eq(9L), anyInt())).thenReturn(List.of());
+
+        job.run();
+
+        verify(redisCache).set(RedisKeys.getSessionPurgeCursorKey(), 0L);
+        verifyNoInteractions(chatMessageMapper);
+    }
+}